@@ -0,0 +1,28 @@
+package io.prismic;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so that the allocation rates are reported along with the timings,
+ * and writes the results to <code>jmh-result-VERSION.json</code> to be compared across releases.
+ *
+ * Takes the usual JMH arguments, for instance a regexp of the benchmarks to run.
+ */
+public class Benchmarks {
+
+  public static void main(String[] args) throws Exception {
+    Options options = new OptionsBuilder()
+      .parent(new CommandLineOptions(args))
+      .addProfiler(GCProfiler.class)
+      .resultFormat(ResultFormatType.JSON)
+      .result("jmh-result-" + Api.getVersion() + ".json")
+      .build();
+    new Runner(options).run();
+  }
+
+}
@@ -0,0 +1,69 @@
+package io.prismic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The built-in cache under contention: every thread reads and writes keys picked among <code>keys</code>,
+ * in a cache holding half of them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+  @Param({"1000"})
+  public int keys;
+
+  private Cache.BuiltInCache cache;
+  private String[] urls;
+  private JsonNode value;
+
+  @Setup
+  public void fill() {
+    cache = new Cache.BuiltInCache(keys / 2);
+    urls = new String[keys];
+    for (int i = 0; i < keys; i++) {
+      urls[i] = "https://repository.prismic.io/api/documents/search?ref=master-ref&page=" + i;
+    }
+    value = JsonNodeFactory.instance.objectNode().put("page", 1);
+    for (int i = 0; i < keys / 2; i++) {
+      cache.set(urls[i], 60000L, value);
+    }
+  }
+
+  @Benchmark
+  public JsonNode get() {
+    return cache.get(urls[ThreadLocalRandom.current().nextInt(keys)]);
+  }
+
+  @Benchmark
+  public JsonNode getOrLoad() {
+    return cache.getOrLoad(urls[ThreadLocalRandom.current().nextInt(keys)], () -> value);
+  }
+
+  @Benchmark
+  public void set() {
+    cache.set(urls[ThreadLocalRandom.current().nextInt(keys)], 60000L, value);
+  }
+
+}
@@ -0,0 +1,107 @@
+package io.prismic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing documents, looking their fragments up and rendering them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentBenchmark {
+
+  @Param({"document_store.json", "simple_slices.json", "composite_slices.json"})
+  public String fixture;
+
+  @Param({"1", "20"})
+  public int scale;
+
+  private JsonNode json;
+  private Document document;
+  private Fragment.StructuredText text;
+  private String single;
+  private String multi;
+  private final StringBuilder out = new StringBuilder();
+
+  @Setup
+  public void load() throws IOException {
+    json = Fixtures.scaled(Fixtures.json(fixture), scale);
+    document = Document.parse(json);
+    for (String name : document.getFragments().keySet()) {
+      Fragment fragment = document.getFragments().get(name);
+      if (text == null && fragment instanceof Fragment.StructuredText) {
+        text = (Fragment.StructuredText) fragment;
+      }
+      if (single == null && !name.endsWith("]")) {
+        single = name;
+      }
+      if (multi == null && name.endsWith("[0]")) {
+        multi = name.substring(0, name.length() - 3);
+      }
+    }
+    if (multi == null) {
+      multi = single;
+    }
+  }
+
+  @Benchmark
+  public Document parse() {
+    return Document.parse(json);
+  }
+
+  @Benchmark
+  public Document parseLazily() {
+    return Document.parse(json, true);
+  }
+
+  @Benchmark
+  public Fragment get() {
+    return document.get(single);
+  }
+
+  @Benchmark
+  public List<Fragment> getAll() {
+    return document.getAll(multi);
+  }
+
+  @Benchmark
+  public Fragment getMissing() {
+    return document.get("missing.field");
+  }
+
+  @Benchmark
+  public String structuredTextAsHtml() {
+    return text != null ? text.asHtml(Fixtures.LINK_RESOLVER) : null;
+  }
+
+  @Benchmark
+  public String documentAsHtml() {
+    return document.asHtml(Fixtures.LINK_RESOLVER);
+  }
+
+  @Benchmark
+  public int documentAsHtmlToAppendable() throws IOException {
+    out.setLength(0);
+    document.asHtml(out, Fixtures.LINK_RESOLVER);
+    return out.length();
+  }
+
+}
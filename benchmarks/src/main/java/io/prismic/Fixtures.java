@@ -0,0 +1,52 @@
+package io.prismic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.prismic.core.Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The documents of the test fixtures, and larger documents made out of them.
+ */
+class Fixtures {
+
+  static final LinkResolver LINK_RESOLVER = new SimpleLinkResolver() {
+    public String resolve(Fragment.DocumentLink link) {
+      return "/" + link.getId() + "/" + link.getSlug();
+    }
+  };
+
+  private Fixtures() {}
+
+  static JsonNode json(String fixture) throws IOException {
+    try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + fixture)) {
+      return Json.readTree(in);
+    }
+  }
+
+  /**
+   * @return the document with <code>scale</code> copies of each of its fields, named <code>field</code>,
+   * <code>field_1</code>, <code>field_2</code>...
+   */
+  static JsonNode scaled(JsonNode document, int scale) {
+    ObjectNode copy = document.deepCopy();
+    String type = copy.path("type").asText();
+    ObjectNode data = copy.with("data").with(type);
+    List<String> fields = new ArrayList<>();
+    for (Iterator<String> names = data.fieldNames(); names.hasNext();) {
+      fields.add(names.next());
+    }
+    for (int i = 1; i < scale; i++) {
+      for (String field : fields) {
+        data.set(field + "_" + i, data.get(field).deepCopy());
+      }
+    }
+    return copy;
+  }
+
+}
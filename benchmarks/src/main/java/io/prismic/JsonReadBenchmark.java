@@ -0,0 +1,57 @@
+package io.prismic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.prismic.core.Json;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a response body with a new ObjectMapper, as the kit used to, against the shared {@link Json} reader.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonReadBenchmark {
+
+  @Param({"document_store.json", "composite_slices.json"})
+  public String fixture;
+
+  private byte[] body;
+
+  @Setup
+  public void load() throws IOException {
+    try (InputStream in = JsonReadBenchmark.class.getResourceAsStream("/fixtures/" + fixture)) {
+      body = IOUtils.toByteArray(in);
+    }
+  }
+
+  @Benchmark
+  public JsonNode newMapper() throws IOException {
+    return new ObjectMapper().readTree(new ByteArrayInputStream(body));
+  }
+
+  @Benchmark
+  public JsonNode sharedReader() throws IOException {
+    return Json.readTree(new ByteArrayInputStream(body));
+  }
+
+}
@@ -0,0 +1,78 @@
+package io.prismic;
+
+import io.prismic.core.Json;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the predicates and the URL of a query, without sending it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+  private static final String API_DOCUMENT = "{\"refs\":[{\"id\":\"master\",\"ref\":\"master-ref\",\"label\":\"Master\",\"isMasterRef\":true}],"
+    + "\"bookmarks\":{},\"types\":{\"article\":\"Article\"},\"tags\":[],"
+    + "\"forms\":{\"everything\":{\"method\":\"GET\",\"enctype\":\"application/x-www-form-urlencoded\","
+    + "\"action\":\"https://repository.prismic.io/api/documents/search\",\"fields\":{"
+    + "\"ref\":{\"type\":\"String\",\"multiple\":false},"
+    + "\"q\":{\"type\":\"String\",\"multiple\":true},"
+    + "\"lang\":{\"type\":\"String\",\"multiple\":false},"
+    + "\"orderings\":{\"type\":\"String\",\"multiple\":false},"
+    + "\"page\":{\"type\":\"Integer\",\"multiple\":false,\"default\":\"1\"},"
+    + "\"pageSize\":{\"type\":\"Integer\",\"multiple\":false,\"default\":\"20\"}}}},"
+    + "\"experiments\":{}}";
+
+  private final List<String> ids = Arrays.asList("WHx-gSYAAMkyXYX_", "WHyJqyYAAHgyXbcj", "WH2PaioAALYBEgug");
+  private final ZonedDateTime date = ZonedDateTime.parse("2018-01-01T00:00:00Z");
+  private Api api;
+
+  @Setup
+  public void load() throws IOException {
+    Cache cache = new Cache.NoCache();
+    api = new Api(Api.parseApiData("https://repository.prismic.io/api", Json.readTree(API_DOCUMENT), cache),
+      null, null, cache, new Logger.NoLogger(), null, null);
+  }
+
+  @Benchmark
+  public String at() {
+    return Predicates.at("document.type", "article").q();
+  }
+
+  @Benchmark
+  public String any() {
+    return Predicates.any("document.id", ids).q();
+  }
+
+  @Benchmark
+  public String dateBetween() {
+    return Predicates.dateBetween("my.article.date", date, date.plusDays(7)).q();
+  }
+
+  @Benchmark
+  public String searchFormUrl() {
+    return api.query(Predicates.at("document.type", "article"), Predicates.fulltext("document", "java"))
+      .orderings("[my.article.date desc]")
+      .pageSize(50)
+      .url();
+  }
+
+}
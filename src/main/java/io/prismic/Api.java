@@ -2,12 +2,15 @@ package io.prismic;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import io.prismic.core.HttpClient;
+import io.prismic.core.HttpTransport;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Proxy;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Embodies an API endpoint, from which it is possible to make queries.
@@ -43,6 +46,8 @@ public class Api {
       AUTHORIZATION_NEEDED,
       INVALID_TOKEN,
       TOO_MANY_REQUESTS,
+      /** The request was not sent, the repository having failed too often recently, see {@link io.prismic.core.CircuitBreakerTransport} */
+      CIRCUIT_OPEN,
       UNEXPECTED
     }
 
@@ -77,7 +82,7 @@ public class Api {
 
   /**
    * Entry point to get an {@link Api} object.
-   * Example: <code>API api = API.get("https://lesbonneschoses.prismic.io/api", null, new Cache.BuiltInCache(999), new Logger.PrintlnLogger());</code>
+   * Example: <code>API api = API.get("https://lesbonneschoses.prismic.io/api", null, null, new Cache.BuiltInCache(999), new Logger.PrintlnLogger(), null, transport);</code>
    *
    * @param endpoint the endpoint of your prismic.io content repository, typically https://yourrepoid.prismic.io/api
    * @param accessToken Your Oauth access token if you wish to use one (to access future content releases, for instance)
@@ -85,18 +90,49 @@ public class Api {
    * @param cache instance of a class that implements the {@link Cache} interface, and will handle the cache
    * @param logger instance of a class that implements the {@link Logger} interface, and will handle the logging
    * @param proxy an optional java.net.Proxy instance that defines the http proxy to be used
+   * @param transport the {@link HttpTransport} performing the HTTP calls, typically shared by all the Api objects of the JVM.
+   *                  Will default to {@link HttpTransport.DefaultTransport} if null
    * @return the usable API object
    */
-  public static Api get(String endpoint, String accessToken, String defaultReference, final Cache cache, final Logger logger, final Proxy proxy) {
-    final String url = (accessToken == null ? endpoint : (endpoint + "?access_token=" + HttpClient.encodeURIComponent(accessToken)));
+  public static Api get(String endpoint, String accessToken, String defaultReference, final Cache cache, final Logger logger, final Proxy proxy, final HttpTransport transport) {
+    final String url = apiUrl(endpoint, accessToken);
     JsonNode json = cache.getOrSet(
       url,
       5000L,
-      () -> HttpClient.fetch(url, logger, null, proxy)
+      () -> HttpClient.fetch(url, logger, null, proxy, transport)
     );
+    return new Api(parseApiData(endpoint, json, cache), accessToken, defaultReference, cache, logger, proxy, transport);
+  }
 
+  static String apiUrl(String endpoint, String accessToken) {
+    return accessToken == null ? endpoint : (endpoint + "?access_token=" + HttpClient.encodeURIComponent(accessToken));
+  }
+
+  static ApiData parseApiData(String endpoint, JsonNode json, Cache cache) {
     ApiData apiData = ApiData.parse(json);
-    return new Api(apiData, accessToken, defaultReference, cache, logger, proxy);
+    for (Ref ref : apiData.getRefs()) {
+      if (ref.isMasterRef()) {
+        // Queries on the previous master ref will not be made again, their cached responses can go
+        cache.updateMasterRef(endpoint, ref.getRef());
+      }
+    }
+    return apiData;
+  }
+
+  /**
+   * Entry point to get an {@link Api} object.
+   * Example: <code>API api = API.get("https://lesbonneschoses.prismic.io/api", null, new Cache.BuiltInCache(999), new Logger.PrintlnLogger());</code>
+   *
+   * @param endpoint the endpoint of your prismic.io content repository, typically https://yourrepoid.prismic.io/api
+   * @param accessToken Your Oauth access token if you wish to use one (to access future content releases, for instance)
+   * @param defaultReference The default reference to use with queries. Will default to master if null
+   * @param cache instance of a class that implements the {@link Cache} interface, and will handle the cache
+   * @param logger instance of a class that implements the {@link Logger} interface, and will handle the logging
+   * @param proxy an optional java.net.Proxy instance that defines the http proxy to be used
+   * @return the usable API object
+   */
+  public static Api get(String endpoint, String accessToken, String defaultReference, final Cache cache, final Logger logger, final Proxy proxy) {
+    return get(endpoint, accessToken, defaultReference, cache, logger, proxy, null);
   }
 
   /**
@@ -157,6 +193,40 @@ public class Api {
     return get(url, null);
   }
 
+  /**
+   * Asynchronous version of {@link #get(String, String, String, Cache, Logger, Proxy, HttpTransport)}:
+   * the /api document is fetched on the given executor.
+   *
+   * @param executor the executor performing the HTTP call and the parsing
+   * @return a future completed with the usable API object
+   */
+  public static CompletableFuture<Api> getAsync(final String endpoint, final String accessToken, final String defaultReference, final Cache cache, final Logger logger, final Proxy proxy, final HttpTransport transport, Executor executor) {
+    return CompletableFuture.supplyAsync(() -> get(endpoint, accessToken, defaultReference, cache, logger, proxy, transport), executor);
+  }
+
+  /**
+   * Asynchronous version of {@link #get(String, String)}
+   *
+   * @param url the endpoint of your prismic.io content repository, typically https://yourrepoid.prismic.io/api
+   * @param accessToken Your Oauth access token if you wish to use one (to access future content releases, for instance)
+   * @param executor the executor performing the HTTP call and the parsing
+   * @return a future completed with the usable API object
+   */
+  public static CompletableFuture<Api> getAsync(String url, String accessToken, Executor executor) {
+    return getAsync(url, accessToken, null, Cache.DefaultCache.getInstance(), new Logger.NoLogger(), null, null, executor);
+  }
+
+  /**
+   * Asynchronous version of {@link #get(String)}
+   *
+   * @param url the endpoint of your prismic.io content repository, typically https://yourrepoid.prismic.io/api
+   * @param executor the executor performing the HTTP call and the parsing
+   * @return a future completed with the usable API object
+   */
+  public static CompletableFuture<Api> getAsync(String url, Executor executor) {
+    return getAsync(url, null, executor);
+  }
+
   // --
 
   final private ApiData apiData;
@@ -165,6 +235,7 @@ public class Api {
   final private Cache cache;
   final private Logger logger;
   final private Proxy proxy;
+  final private HttpTransport transport;
 
   /**
    * Constructor to build a proper {@link Api} object. This is not to build an {@link Api} object
@@ -175,24 +246,37 @@ public class Api {
    * @param defaultReference The default reference to use with queries. Will default to master if null
    * @param cache instance of a class that implements the {@link Cache} interface, and will handle the cache
    * @param logger instance of a class that implements the {@link Logger} interface, and will handle the logging
+   * @param proxy an optional java.net.Proxy instance that defines the http proxy to be used
+   * @param transport the {@link HttpTransport} performing the HTTP calls, will default to {@link HttpTransport.DefaultTransport} if null
    */
-  public Api(ApiData apiData, String accessToken, String defaultReference, Cache cache, Logger logger, Proxy proxy) {
+  public Api(ApiData apiData, String accessToken, String defaultReference, Cache cache, Logger logger, Proxy proxy, HttpTransport transport) {
     this.apiData = apiData;
     this.accessToken = accessToken;
     this.defaultReference = defaultReference;
     this.cache = cache;
     this.logger = logger;
     this.proxy = proxy;
+    this.transport = transport != null ? transport : HttpTransport.DefaultTransport.getInstance();
+  }
+
+  public Api(ApiData apiData, String accessToken, String defaultReference, Cache cache, Logger logger, Proxy proxy) {
+    this(apiData, accessToken, defaultReference, cache, logger, proxy, null);
   }
 
   @Deprecated
   public Api(ApiData apiData, String accessToken, Cache cache, Logger logger, Proxy proxy) {
-    this.apiData = apiData;
-    this.accessToken = accessToken;
-    this.defaultReference = null;
-    this.cache = cache;
-    this.logger = logger;
-    this.proxy = proxy;
+    this(apiData, accessToken, null, cache, logger, proxy, null);
+  }
+
+  /**
+   * A copy of this Api querying another ref by default. It shares everything else, and is cheap enough
+   * to be made on every request, typically for the ref of a preview or experiment cookie.
+   *
+   * @param defaultReference the default reference to use with queries, master if null
+   * @return the Api object to use for this ref
+   */
+  public Api withDefaultReference(String defaultReference) {
+    return new Api(apiData, accessToken, defaultReference, cache, logger, proxy, transport);
   }
 
   public Logger getLogger() {
@@ -211,6 +295,10 @@ public class Api {
 		return proxy;
 	}
 
+  public HttpTransport getTransport() {
+    return transport;
+  }
+
   /**
    * From a properly built {@link Api} object, returns the ref IDs (points in a prismic.io repository's timeline,
    * whether in the past, in the present, or in the future) to which the passed credentials give access.
@@ -367,10 +455,35 @@ public class Api {
    * Return the first document matching the predicate on the given ref in the given language
    */
   public Document queryFirst(Predicate p, String ref, String lang) {
+    return first(queryFirstForm(p, ref, lang).submit());
+  }
+
+  /**
+   * Asynchronous version of {@link #queryFirst(Predicate, String, String)}
+   *
+   * @param executor the executor performing the HTTP call and the parsing
+   * @return a future completed with the document, or with null if there is no match
+   */
+  public CompletableFuture<Document> queryFirstAsync(Predicate p, String ref, String lang, Executor executor) {
+    return queryFirstForm(p, ref, lang).submitAsync(executor).thenApply(Api::first);
+  }
+
+  /**
+   * Asynchronous version of {@link #queryFirst(Predicate)}
+   */
+  public CompletableFuture<Document> queryFirstAsync(Predicate p, Executor executor) {
+    return queryFirstAsync(p, null, null, executor);
+  }
+
+  private Form.SearchForm queryFirstForm(Predicate p, String ref, String lang) {
     if (ref == null) {
       ref = this.defaultReference == null ? this.getMaster().getRef() : this.defaultReference;
     }
-    List<Document> results = query(p).ref(ref).lang(lang).submit().getResults();
+    return query(p).ref(ref).lang(lang);
+  }
+
+  private static Document first(Response response) {
+    List<Document> results = response.getResults();
     if (results.size() > 0) {
       return results.get(0);
     } else {
@@ -420,6 +533,25 @@ public class Api {
     return this.getByID(documentId, null);
   }
 
+  /**
+   * Asynchronous version of {@link #getByID(String, String, String)}
+   *
+   * @return a future completed with the document, or with null if it doesn't exist
+   */
+  public CompletableFuture<Document> getByIDAsync(String documentId, String ref, String lang, Executor executor) {
+    lang = lang != null ? lang : "*";
+    return queryFirstAsync(Predicates.at("document.id", documentId), ref, lang, executor);
+  }
+
+  /**
+   * Asynchronous version of {@link #getByID(String)}
+   *
+   * @return a future completed with the document, or with null if it doesn't exist
+   */
+  public CompletableFuture<Document> getByIDAsync(String documentId, Executor executor) {
+    return getByIDAsync(documentId, null, null, executor);
+  }
+
   /**
    * Retrieve a document by its UID on the given reference in the given language
    *
@@ -448,6 +580,25 @@ public class Api {
     return this.getByUID(documentType, documentUID, null);
   }
 
+  /**
+   * Asynchronous version of {@link #getByUID(String, String, String, String)}
+   *
+   * @return a future completed with the document, or with null if it doesn't exist
+   */
+  public CompletableFuture<Document> getByUIDAsync(String documentType, String documentUID, String ref, String lang, Executor executor) {
+    lang = lang != null ? lang : "*";
+    return queryFirstAsync(Predicates.at("my." + documentType + ".uid", documentUID), ref, lang, executor);
+  }
+
+  /**
+   * Asynchronous version of {@link #getByUID(String, String)}
+   *
+   * @return a future completed with the document, or with null if it doesn't exist
+   */
+  public CompletableFuture<Document> getByUIDAsync(String documentType, String documentUID, Executor executor) {
+    return getByUIDAsync(documentType, documentUID, null, null, executor);
+  }
+
   public Document getBookmark(String bookmark, String ref) {
     if (ref == null) {
       ref = this.defaultReference == null ? this.getMaster().getRef() : this.defaultReference;
@@ -459,6 +610,17 @@ public class Api {
     return getBookmark(bookmark, null);
   }
 
+  public CompletableFuture<Document> getBookmarkAsync(String bookmark, String ref, Executor executor) {
+    if (ref == null) {
+      ref = this.defaultReference == null ? this.getMaster().getRef() : this.defaultReference;
+    }
+    return this.getByIDAsync(this.apiData.bookmarks.get(bookmark), ref, null, executor);
+  }
+
+  public CompletableFuture<Document> getBookmarkAsync(String bookmark, Executor executor) {
+    return getBookmarkAsync(bookmark, null, executor);
+  }
+
   /**
    * Return the URL to display a given preview
    * @param token as received from Prismic server to identify the content to preview
@@ -468,7 +630,7 @@ public class Api {
    * @return the URL you should redirect the user to preview the requested change
    */
   public String previewSession(String token, LinkResolver linkResolver, String defaultUrl, Proxy proxy) {
-    JsonNode tokenJson = HttpClient.fetch(token, logger, cache, proxy);
+    JsonNode tokenJson = HttpClient.fetch(token, logger, cache, proxy, transport);
     JsonNode mainDocumentId = tokenJson.path("mainDocument");
     if (!mainDocumentId.isTextual()) {
       return defaultUrl;
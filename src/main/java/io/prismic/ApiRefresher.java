@@ -0,0 +1,142 @@
+package io.prismic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.prismic.core.HttpClient;
+import io.prismic.core.HttpTransport;
+
+import java.io.Closeable;
+import java.net.Proxy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds an {@link Api} object for the lifetime of an application, refreshing its /api document in the background.
+ *
+ * Instead of calling <code>Api.get</code> for every page, which looks the /api document up in the cache and parses it
+ * each time, create one ApiRefresher at startup and call {@link #get()} or {@link #get(String)} for every page:
+ * it only reads the current Api object. The /api document is fetched on a schedule, and only parsed when it changed.
+ * If a refresh fails, the previous Api object keeps being served.
+ */
+public class ApiRefresher implements Closeable {
+
+  private final String endpoint;
+  private final String url;
+  private final String accessToken;
+  private final Cache cache;
+  private final Logger logger;
+  private final Proxy proxy;
+  private final HttpTransport transport;
+  private final ScheduledExecutorService scheduler;
+  private final boolean ownScheduler;
+  private final ScheduledFuture<?> task;
+  private volatile Api api;
+  private volatile JsonNode json;
+
+  /**
+   * Fetch the /api document, then refresh it every <code>period</code> milliseconds on a dedicated daemon thread.
+   *
+   * @param endpoint the endpoint of your prismic.io content repository, typically https://yourrepoid.prismic.io/api
+   * @param accessToken Your Oauth access token if you wish to use one (to access future content releases, for instance)
+   * @param cache instance of a class that implements the {@link Cache} interface, used by the queries
+   * @param logger instance of a class that implements the {@link Logger} interface, and will handle the logging
+   * @param proxy an optional java.net.Proxy instance that defines the http proxy to be used
+   * @param transport the {@link HttpTransport} performing the HTTP calls, will default to {@link HttpTransport.DefaultTransport} if null
+   * @param period the delay between two refreshes, in milliseconds
+   * @throws Api.Error if the first fetch fails
+   */
+  public ApiRefresher(String endpoint, String accessToken, Cache cache, Logger logger, Proxy proxy, HttpTransport transport, long period) {
+    this(endpoint, accessToken, cache, logger, proxy, transport, period, defaultScheduler(), true);
+  }
+
+  /**
+   * @param scheduler runs the refreshes; it is not shut down by {@link #close()}
+   */
+  public ApiRefresher(String endpoint, String accessToken, Cache cache, Logger logger, Proxy proxy, HttpTransport transport, long period, ScheduledExecutorService scheduler) {
+    this(endpoint, accessToken, cache, logger, proxy, transport, period, scheduler, false);
+  }
+
+  public ApiRefresher(String endpoint, String accessToken, long period) {
+    this(endpoint, accessToken, Cache.DefaultCache.getInstance(), new Logger.NoLogger(), null, null, period);
+  }
+
+  private ApiRefresher(String endpoint, String accessToken, Cache cache, Logger logger, Proxy proxy, HttpTransport transport, long period, ScheduledExecutorService scheduler, boolean ownScheduler) {
+    this.endpoint = endpoint;
+    this.url = Api.apiUrl(endpoint, accessToken);
+    this.accessToken = accessToken;
+    this.cache = cache != null ? cache : Cache.DefaultCache.getInstance();
+    this.logger = logger != null ? logger : new Logger.NoLogger();
+    this.proxy = proxy;
+    this.transport = transport;
+    this.scheduler = scheduler;
+    this.ownScheduler = ownScheduler;
+    try {
+      refresh();
+    } catch (RuntimeException e) {
+      if (ownScheduler) {
+        scheduler.shutdown();
+      }
+      throw e;
+    }
+    this.task = scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (RuntimeException e) {
+        this.logger.log("ERROR", "Could not refresh " + endpoint + ", keeping the previous /api document: " + e.getMessage());
+      }
+    }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @return the current Api object, querying the master ref by default
+   */
+  public Api get() {
+    return api;
+  }
+
+  /**
+   * @param ref the ref to query by default, such as the value of a preview or experiment cookie; master if null
+   * @return the current Api object for this ref
+   */
+  public Api get(String ref) {
+    Api current = api;
+    return ref == null ? current : current.withDefaultReference(ref);
+  }
+
+  /**
+   * Fetch the /api document now, and swap the Api object if it changed.
+   *
+   * @throws Api.Error if the fetch fails
+   */
+  public void refresh() {
+    // The /api document is not cached: this object is its cache
+    JsonNode fetched = HttpClient.fetch(url, logger, null, proxy, transport);
+    if (fetched.equals(json)) {
+      return;
+    }
+    Api.ApiData apiData = Api.parseApiData(endpoint, fetched, cache);
+    this.api = new Api(apiData, accessToken, null, cache, logger, proxy, transport);
+    this.json = fetched;
+  }
+
+  /**
+   * Stop refreshing. The last Api object remains usable.
+   */
+  @Override
+  public void close() {
+    task.cancel(false);
+    if (ownScheduler) {
+      scheduler.shutdown();
+    }
+  }
+
+  private static ScheduledExecutorService defaultScheduler() {
+    return Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "prismic-api-refresh");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+}
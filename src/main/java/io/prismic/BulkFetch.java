@@ -0,0 +1,157 @@
+package io.prismic;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Fetches the pages of a query concurrently, see {@link Form.SearchForm#fetchAllPages(Executor, int, boolean, Consumer)}.
+ *
+ * When the repository answers 429 Too Many Requests, the page is fetched again after a delay doubling at each attempt,
+ * and no other page is requested until that delay is over.
+ *
+ * When a page fails, the pages being fetched are cancelled and stop retrying.
+ */
+class BulkFetch {
+
+  static final long FIRST_BACKOFF = 500;
+  static final long MAX_BACKOFF = 30000;
+  static final int MAX_RETRIES = 8;
+
+  private final IntFunction<Response> fetchPage;
+  private final Executor executor;
+  private final int maxConcurrency;
+  private final boolean ordered;
+  private final long firstBackoff;
+  private final AtomicLong pausedUntil = new AtomicLong();
+  private volatile boolean cancelled = false;
+
+  BulkFetch(IntFunction<Response> fetchPage, Executor executor, int maxConcurrency, boolean ordered) {
+    this(fetchPage, executor, maxConcurrency, ordered, FIRST_BACKOFF);
+  }
+
+  BulkFetch(IntFunction<Response> fetchPage, Executor executor, int maxConcurrency, boolean ordered, long firstBackoff) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency must be positive");
+    }
+    this.fetchPage = fetchPage;
+    this.executor = executor;
+    this.maxConcurrency = maxConcurrency;
+    this.ordered = ordered;
+    this.firstBackoff = firstBackoff;
+  }
+
+  /**
+   * @param firstPage fetched first, on the calling thread, to know how many pages there are
+   * @param consumer called on the calling thread, one page at a time
+   */
+  void run(int firstPage, Consumer<Response> consumer) {
+    Response first = fetch(firstPage);
+    consumer.accept(first);
+    if (first.getNextPage() == null) {
+      return;
+    }
+    int lastPage = first.getTotalPages();
+    CompletionService<Response> completion = new ExecutorCompletionService<>(executor);
+    Map<Future<Response>, Integer> pages = new HashMap<>();
+    // Fetched pages waiting for the previous ones, when delivering in order
+    Map<Integer, Response> fetched = new HashMap<>();
+    int nextPage = firstPage + 1;
+    int nextToDeliver = firstPage + 1;
+    boolean completed = false;
+    try {
+      while (nextToDeliver <= lastPage) {
+        // Pages fetched but not delivered yet count too, so that memory stays bounded when an early page is slow
+        while (nextPage <= lastPage && pages.size() + fetched.size() < maxConcurrency) {
+          final int page = nextPage++;
+          pages.put(completion.submit(() -> fetch(page)), page);
+        }
+        Future<Response> done = take(completion);
+        int page = pages.remove(done);
+        Response response = result(done);
+        if (!ordered) {
+          consumer.accept(response);
+          nextToDeliver++;
+          continue;
+        }
+        fetched.put(page, response);
+        for (Response next = fetched.remove(nextToDeliver); next != null; next = fetched.remove(nextToDeliver)) {
+          consumer.accept(next);
+          nextToDeliver++;
+        }
+      }
+      completed = true;
+    } finally {
+      if (!completed) {
+        // Nobody will read the other pages: stop fetching them, and backing off for them
+        cancelled = true;
+        for (Future<Response> pending : pages.keySet()) {
+          pending.cancel(true);
+        }
+      }
+    }
+  }
+
+  private Response fetch(int page) {
+    long backoff = firstBackoff;
+    for (int attempt = 0; ; attempt++) {
+      sleep(pausedUntil.get() - System.currentTimeMillis());
+      if (cancelled) {
+        throw new Api.Error(Api.Error.Code.UNEXPECTED, "Cancelled after another page failed");
+      }
+      try {
+        return fetchPage.apply(page);
+      } catch (Api.Error e) {
+        if (e.getCode() != Api.Error.Code.TOO_MANY_REQUESTS || attempt == MAX_RETRIES) {
+          throw e;
+        }
+        long until = System.currentTimeMillis() + backoff;
+        pausedUntil.accumulateAndGet(until, Math::max);
+        backoff = Math.min(backoff * 2, MAX_BACKOFF);
+      }
+    }
+  }
+
+  private static Future<Response> take(CompletionService<Response> completion) {
+    try {
+      return completion.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new Api.Error(Api.Error.Code.UNEXPECTED, "Interrupted while fetching pages", e);
+    }
+  }
+
+  private static Response result(Future<Response> future) {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new Api.Error(Api.Error.Code.UNEXPECTED, e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new Api.Error(Api.Error.Code.UNEXPECTED, "Interrupted while fetching pages", e);
+    }
+  }
+
+  private static void sleep(long millis) {
+    if (millis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new Api.Error(Api.Error.Code.UNEXPECTED, "Interrupted while backing off", e);
+    }
+  }
+
+}
@@ -1,7 +1,23 @@
 package io.prismic;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import org.apache.commons.collections4.map.LRUMap;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongBiFunction;
 
 public interface Cache {
 
@@ -9,6 +25,98 @@ public interface Cache {
   JsonNode get(String key);
   JsonNode getOrSet(String key, Long ttl, Callback f);
 
+  /**
+   * Store a response, along with how long it may still be served once expired.
+   *
+   * @param key the cache key
+   * @param ttl the time to live in milliseconds
+   * @param staleWhileRevalidate how long in milliseconds the response may be served while it is being refreshed, null to use the cache's default
+   * @param staleIfError how long in milliseconds the response may be served if its refresh fails, null to use the cache's default
+   * @param response the value to store
+   */
+  default void set(String key, Long ttl, Long staleWhileRevalidate, Long staleIfError, JsonNode response) {
+    set(key, ttl, response);
+  }
+
+  /**
+   * Return the cached response, or call the loader. Unlike {@link #getOrSet(String, Long, Callback)},
+   * the loader is responsible for storing its result, as only it knows how long the result should be kept
+   * (typically from the Cache-Control header of the HTTP response).
+   *
+   * @param key the cache key
+   * @param loader computes and stores the value
+   * @return the value
+   */
+  default JsonNode getOrLoad(String key, Callback loader) {
+    JsonNode found = get(key);
+    return found != null ? found : loader.execute();
+  }
+
+  /**
+   * Return the cached parsed form of a response, such as a {@link Response}, or load and parse it.
+   * Caches able to keep parsed objects return the same instance on every hit, which must therefore be immutable;
+   * other caches only keep the JSON and parse it each time.
+   *
+   * @param key the cache key
+   * @param type the class of the parsed value
+   * @param loader computes and stores the JSON value, as in {@link #getOrLoad(String, Callback)}
+   * @param parser turns the JSON value into its parsed form
+   * @param <T> the type of the parsed value
+   * @return the parsed value
+   */
+  default <T> T getOrLoadParsed(String key, Class<T> type, Callback loader, Function<JsonNode, T> parser) {
+    return parser.apply(getOrLoad(key, loader));
+  }
+
+  /**
+   * @return true if this cache can store parsed values with {@link #setParsed(String, Long, Long, Long, Object)},
+   * in which case they can be decoded straight from HTTP responses without building a JSON tree
+   */
+  default boolean storesParsed() {
+    return false;
+  }
+
+  /**
+   * Store a parsed value, such as a {@link Response}. Ignored unless {@link #storesParsed()}.
+   *
+   * @see #set(String, Long, Long, Long, JsonNode)
+   */
+  default void setParsed(String key, Long ttl, Long staleWhileRevalidate, Long staleIfError, Object value) {
+  }
+
+  /**
+   * Return the cached parsed value, or call a loader producing it without going through JSON, which stores it with
+   * {@link #setParsed(String, Long, Long, Long, Object)}. Unless {@link #storesParsed()}, nothing is cached
+   * and the loader is called every time.
+   *
+   * @param key the cache key
+   * @param type the class of the parsed value
+   * @param loader computes and stores the parsed value
+   * @param <T> the type of the parsed value
+   * @return the parsed value
+   */
+  default <T> T getOrLoadParsed(String key, Class<T> type, Supplier<T> loader) {
+    return loader.get();
+  }
+
+  /**
+   * Drop every entry whose key is a URL querying the given ref, typically a master ref that has been replaced.
+   *
+   * @param ref the ref ID
+   */
+  default void invalidateRef(String ref) {
+  }
+
+  /**
+   * Record the current master ref of a repository. When it differs from the previously recorded one,
+   * the entries of the previous master ref are dropped with {@link #invalidateRef(String)}.
+   *
+   * @param repository identifies the repository, such as its endpoint
+   * @param ref the ID of its current master ref
+   */
+  default void updateMasterRef(String repository, String ref) {
+  }
+
   // --
   class NoCache implements Cache {
 
@@ -47,54 +155,515 @@ public interface Cache {
     JsonNode execute();
   }
 
+  /**
+   * Computes the weight of a cache entry, such as its estimated size in bytes.
+   */
+  interface Weigher {
+
+    /**
+     * Estimates the heap retained by an entry, its key included, whether the value is a JSON tree
+     * or a parsed {@link Response}.
+     */
+    Weigher RETAINED_SIZE = SizeEstimator::entry;
+
+    long weigh(String key, Object value);
+  }
+
+  /**
+   * An on-heap cache in front of a {@link MappedFileCache} shared by the JVMs of a host.
+   *
+   * Misses of the first tier are looked up in the file before calling the loader, and found responses are
+   * promoted with their remaining time to live. Responses stored by the loader go to both tiers.
+   */
+  class TieredCache implements Cache {
+
+    private final Cache memory;
+    private final MappedFileCache file;
+
+    public TieredCache(Cache memory, MappedFileCache file) {
+      this.memory = memory;
+      this.file = file;
+    }
+
+    @Override
+    public JsonNode get(String key) {
+      JsonNode found = memory.get(key);
+      return found != null ? found : promote(key);
+    }
+
+    @Override
+    public void set(String key, Long ttl, JsonNode response) {
+      set(key, ttl, null, null, response);
+    }
+
+    @Override
+    public void set(String key, Long ttl, Long staleWhileRevalidate, Long staleIfError, JsonNode response) {
+      memory.set(key, ttl, staleWhileRevalidate, staleIfError, response);
+      file.set(key, ttl, staleWhileRevalidate, staleIfError, response);
+    }
+
+    @Override
+    public JsonNode getOrSet(final String key, final Long ttl, final Callback f) {
+      return getOrLoad(key, () -> {
+        JsonNode json = f.execute();
+        this.set(key, ttl, json);
+        return json;
+      });
+    }
+
+    @Override
+    public JsonNode getOrLoad(String key, Callback loader) {
+      return memory.getOrLoad(key, fromFile(key, loader));
+    }
+
+    @Override
+    public <T> T getOrLoadParsed(String key, Class<T> type, Callback loader, Function<JsonNode, T> parser) {
+      return memory.getOrLoadParsed(key, type, fromFile(key, loader), parser);
+    }
+
+    @Override
+    public void invalidateRef(String ref) {
+      memory.invalidateRef(ref);
+      file.invalidateRef(ref);
+    }
+
+    @Override
+    public void updateMasterRef(String repository, String ref) {
+      memory.updateMasterRef(repository, ref);
+      file.updateMasterRef(repository, ref);
+    }
+
+    private Callback fromFile(final String key, final Callback loader) {
+      return () -> {
+        JsonNode found = promote(key);
+        return found != null ? found : loader.execute();
+      };
+    }
+
+    private JsonNode promote(String key) {
+      MappedFileCache.Record record = file.read(key);
+      long now = System.currentTimeMillis();
+      if (record == null || record.expiration == 0 || MappedFileCache.isExpired(record.expiration, now)) {
+        return null;
+      }
+      // Entries stored without windows get the memory tier's default ones, as when they were first stored
+      memory.set(key, record.expiration - now, record.staleWhileRevalidate(), record.staleIfError(), record.value);
+      return record.value;
+    }
+
+  }
+
+  /**
+   * The default in-memory cache, keeping at most <code>maxDocuments</code> entries,
+   * or entries up to a total weight such as a number of bytes.
+   *
+   * It is safe for concurrent use: lookups on different keys rarely contend, and
+   * the least recently used entries are evicted first (approximately, as the LRU order is kept per segment).
+   *
+   * Expired entries can be served for a while longer: during their stale-while-revalidate window
+   * they are returned right away while a single background refresh runs, and during their stale-if-error
+   * window they are returned if the refresh fails. With refresh-ahead, entries read shortly before their
+   * expiration are refreshed in the background, so that hot keys never expire.
+   *
+   * Values loaded through {@link #getOrLoadParsed(String, Class, Callback, Function)} are kept in their parsed
+   * form only: the JSON tree is replaced by the parsed object in the same entry, with the same expiration,
+   * so a hit costs no parsing and the entry does not hold both forms.
+   *
+   * Entries are indexed by the <code>ref</code> parameter of their URL, so that all the entries of a ref
+   * can be dropped at once when the master ref moves.
+   */
   class BuiltInCache implements Cache {
 
-    private final java.util.Map<String, Entry> cache;
+    /**
+     * The smallest share of maxWeight a segment of a weighted cache gets, a large search page with {@link Weigher#RETAINED_SIZE}
+     */
+    public static final long MIN_SEGMENT_WEIGHT = 4L * 1024 * 1024;
+
+    private static final Executor defaultRefreshExecutor = refreshExecutor();
+    private static final int MAX_RETIRED_REFS = 256;
+
+    private final StripedLruMap<String, Entry> cache;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // Parsed loads first load the JSON under the same key, so they need their own flights
+    private final ConcurrentMap<String, CompletableFuture<Object>> parsedInFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> keysByRef = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> masterRefs = new ConcurrentHashMap<>();
+    // Former master refs, whose late loads are not stored
+    private final Set<String> retiredRefs = ConcurrentHashMap.newKeySet();
+    private final Queue<String> retirementOrder = new ConcurrentLinkedQueue<>();
+    private final long staleWindow;
+    private final long refreshAhead;
+    private final Executor executor;
 
     static class Entry {
       public final Long expiration;
-      public final JsonNode value;
+      // Either the JSON tree or its parsed form
+      public final Object value;
+      final long staleUntil;
+      final long errorUntil;
       public Entry(Long expiration, JsonNode value) {
+        this(expiration, expiration, expiration, value);
+      }
+      Entry(Long expiration, long staleUntil, long errorUntil, Object value) {
         this.expiration = expiration;
         this.value = value;
+        this.staleUntil = staleUntil;
+        this.errorUntil = errorUntil;
+      }
+      boolean isExpired(long now) {
+        return expiration != 0 && expiration < now;
+      }
+      Entry withValue(Object value) {
+        return new Entry(expiration, staleUntil, errorUntil, value);
       }
     }
 
     public BuiltInCache(int maxDocuments) {
-      this.cache = java.util.Collections.synchronizedMap(new LRUMap<String, Entry>(maxDocuments));
+      this(maxDocuments, 0L, 0L);
+    }
+
+    /**
+     * @param maxDocuments the maximum number of entries
+     * @param staleWindow how long in milliseconds entries may be served once expired, while being refreshed,
+     *                    unless the server specifies otherwise with stale-while-revalidate or stale-if-error
+     * @param refreshAhead entries read less than this many milliseconds before their expiration are refreshed
+     *                     in the background, 0 to disable
+     */
+    public BuiltInCache(int maxDocuments, long staleWindow, long refreshAhead) {
+      this(maxDocuments, staleWindow, refreshAhead, defaultRefreshExecutor);
+    }
+
+    /**
+     * @param maxDocuments the maximum number of entries
+     * @param staleWindow how long in milliseconds entries may be served once expired, while being refreshed,
+     *                    unless the server specifies otherwise with stale-while-revalidate or stale-if-error
+     * @param refreshAhead entries read less than this many milliseconds before their expiration are refreshed
+     *                     in the background, 0 to disable
+     * @param executor runs the background refreshes
+     */
+    public BuiltInCache(int maxDocuments, long staleWindow, long refreshAhead, Executor executor) {
+      this((key, entry) -> 1L, maxDocuments, StripedLruMap.MIN_SEGMENT_CAPACITY, staleWindow, refreshAhead, executor);
+    }
+
+    /**
+     * A cache bounded by the total weight of its entries, such as
+     * <code>new BuiltInCache(64 * 1024 * 1024, Weigher.RETAINED_SIZE)</code> for about 64MB of heap.
+     * The weight of an entry is computed when it is stored, and again when its JSON is replaced by its parsed form.
+     * An entry heavier than a fraction of maxWeight (the share of a segment of the cache) is not kept.
+     * The cache is split in as many segments as there are {@link #MIN_SEGMENT_WEIGHT} in maxWeight, up to twice the
+     * number of processors, so that segments can hold large search pages.
+     *
+     * @param maxWeight the maximum total weight
+     * @param weigher the weight of each entry
+     */
+    public BuiltInCache(long maxWeight, Weigher weigher) {
+      this(maxWeight, weigher, 0L, 0L, defaultRefreshExecutor);
+    }
+
+    /**
+     * @param maxWeight the maximum total weight
+     * @param weigher the weight of each entry
+     * @param staleWindow how long in milliseconds entries may be served once expired, while being refreshed,
+     *                    unless the server specifies otherwise with stale-while-revalidate or stale-if-error
+     * @param refreshAhead entries read less than this many milliseconds before their expiration are refreshed
+     *                     in the background, 0 to disable
+     * @param executor runs the background refreshes
+     */
+    public BuiltInCache(long maxWeight, Weigher weigher, long staleWindow, long refreshAhead, Executor executor) {
+      this((key, entry) -> weigher.weigh(key, entry.value), maxWeight, MIN_SEGMENT_WEIGHT, staleWindow, refreshAhead, executor);
+    }
+
+    private BuiltInCache(ToLongBiFunction<String, Entry> weigher, long capacity, long minSegmentWeight, long staleWindow, long refreshAhead, Executor executor) {
+      this.cache = new StripedLruMap<>(capacity, minSegmentWeight, weigher, (key, entry) -> unindex(key));
+      this.staleWindow = staleWindow;
+      this.refreshAhead = refreshAhead;
+      this.executor = executor;
+    }
+
+    /**
+     * @return the total weight of the entries: their estimated size with a weigher, their number otherwise
+     */
+    public long getWeight() {
+      return this.cache.weight();
     }
 
     @Override
     public JsonNode get(String key) {
       Entry entry = this.cache.get(key);
-      Boolean isExpired = this.isExpired(key);
-      if (entry != null && !isExpired) {
-        return entry.value;
+      if (entry != null && entry.value instanceof JsonNode && !entry.isExpired(System.currentTimeMillis())) {
+        return (JsonNode) entry.value;
       }
       return null;
     }
 
     @Override
     public void set(String key, Long ttl, JsonNode response) {
+      set(key, ttl, null, null, response);
+    }
+
+    @Override
+    public void set(String key, Long ttl, Long staleWhileRevalidate, Long staleIfError, JsonNode response) {
+      store(key, ttl, staleWhileRevalidate, staleIfError, response);
+    }
+
+    @Override
+    public boolean storesParsed() {
+      return true;
+    }
+
+    @Override
+    public void setParsed(String key, Long ttl, Long staleWhileRevalidate, Long staleIfError, Object value) {
+      store(key, ttl, staleWhileRevalidate, staleIfError, value);
+    }
+
+    private void store(String key, Long ttl, Long staleWhileRevalidate, Long staleIfError, Object response) {
       Long expiration = ttl + System.currentTimeMillis();
-      this.cache.put(key, new Entry(expiration, response));
+      long staleUntil = expiration + (staleWhileRevalidate != null ? staleWhileRevalidate : this.staleWindow);
+      long errorUntil = expiration + (staleIfError != null ? staleIfError : this.staleWindow);
+      String ref = refOf(key);
+      if (ref != null && this.retiredRefs.contains(ref)) {
+        return;
+      }
+      index(key);
+      this.cache.put(key, new Entry(expiration, staleUntil, errorUntil, response));
+      if (ref != null && this.retiredRefs.contains(ref)) {
+        // The master ref moved while we were storing, after its entries were dropped
+        this.cache.remove(key);
+        unindex(key);
+      }
     }
 
     @Override
-    public JsonNode getOrSet(String key, Long ttl, Callback f) {
-      JsonNode found = this.get(key);
-      if(found == null) {
+    public void invalidateRef(String ref) {
+      Set<String> keys = this.keysByRef.remove(ref);
+      if (keys != null) {
+        for (String key : keys) {
+          this.cache.remove(key);
+        }
+      }
+    }
+
+    @Override
+    public void updateMasterRef(String repository, String ref) {
+      this.retiredRefs.remove(ref);
+      String previous = this.masterRefs.put(repository, ref);
+      if (previous != null && !previous.equals(ref)) {
+        retire(previous);
+        invalidateRef(previous);
+      }
+    }
+
+    private void retire(String ref) {
+      if (this.retiredRefs.add(ref)) {
+        this.retirementOrder.add(ref);
+        while (this.retiredRefs.size() > MAX_RETIRED_REFS) {
+          String oldest = this.retirementOrder.poll();
+          if (oldest == null) {
+            break;
+          }
+          this.retiredRefs.remove(oldest);
+        }
+      }
+    }
+
+    private void index(String key) {
+      String ref = refOf(key);
+      if (ref != null) {
+        this.keysByRef.computeIfAbsent(ref, r -> ConcurrentHashMap.newKeySet()).add(key);
+      }
+    }
+
+    private void unindex(String key) {
+      String ref = refOf(key);
+      if (ref != null) {
+        this.keysByRef.computeIfPresent(ref, (r, keys) -> {
+          keys.remove(key);
+          return keys.isEmpty() ? null : keys;
+        });
+      }
+    }
+
+    static String refOf(String key) {
+      int query = key.indexOf('?');
+      if (query < 0) {
+        return null;
+      }
+      for (String param : key.substring(query + 1).split("&")) {
+        if (param.startsWith("ref=")) {
+          try {
+            return URLDecoder.decode(param.substring(4), "UTF-8");
+          } catch (UnsupportedEncodingException e) {
+            // Never happens, UTF-8 is supported everywhere!
+            throw new RuntimeException(e);
+          }
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Concurrent misses on the same key are coalesced: only one caller executes the callback,
+     * the others wait for its result, or get its exception if it fails.
+     */
+    @Override
+    public JsonNode getOrSet(final String key, final Long ttl, final Callback f) {
+      return getOrLoad(key, () -> {
         JsonNode json = f.execute();
         this.set(key, ttl, json);
         return json;
-      } else {
-        return found;
+      });
+    }
+
+    /**
+     * Concurrent misses on the same key are coalesced, as in {@link #getOrSet(String, Long, Callback)}.
+     * Stale entries are served according to their stale-while-revalidate and stale-if-error windows.
+     */
+    @Override
+    public JsonNode getOrLoad(String key, Callback loader) {
+      return lookup(key, JsonNode.class, this.inFlight, loader::execute);
+    }
+
+    /**
+     * Hits return the cached parsed instance, with the same coalescing and stale policies
+     * as {@link #getOrLoad(String, Callback)}.
+     */
+    @Override
+    public <T> T getOrLoadParsed(final String key, final Class<T> type, final Callback loader, final Function<JsonNode, T> parser) {
+      Entry entry = this.cache.get(key);
+      if(entry != null && entry.value instanceof JsonNode && !entry.isExpired(System.currentTimeMillis())) {
+        // Stored by a plain lookup: parse it once, then keep the parsed form
+        return promote(key, (JsonNode) entry.value, parser);
       }
+      return lookup(key, type, this.parsedInFlight, () -> {
+        JsonNode json = getOrLoad(key, loader);
+        return promote(key, json, parser);
+      });
+    }
+
+    /**
+     * Hits return the cached parsed instance, with the same coalescing and stale policies
+     * as {@link #getOrLoad(String, Callback)}.
+     */
+    @Override
+    public <T> T getOrLoadParsed(String key, Class<T> type, Supplier<T> loader) {
+      return lookup(key, type, this.parsedInFlight, loader);
     }
 
-    private Boolean isExpired(String key) {
+    private <T> T promote(String key, JsonNode json, Function<JsonNode, T> parser) {
+      T parsed = parser.apply(json);
+      // Only replace the entry we parsed, not one a concurrent load has stored since
+      this.cache.replace(key, entry -> entry.value == json ? entry.withValue(parsed) : entry);
+      return parsed;
+    }
+
+    private <T> T lookup(String key, Class<T> type, ConcurrentMap<String, CompletableFuture<Object>> flights, Supplier<T> loader) {
+      long now = System.currentTimeMillis();
       Entry entry = this.cache.get(key);
-      return entry != null && entry.expiration !=0 && entry.expiration < System.currentTimeMillis();
+      if(entry != null && !type.isInstance(entry.value)) {
+        entry = null;
+      }
+      if(entry != null && !entry.isExpired(now)) {
+        if(this.refreshAhead > 0 && entry.expiration != 0 && entry.expiration - now < this.refreshAhead) {
+          refreshInBackground(key, flights, loader);
+        }
+        return type.cast(entry.value);
+      }
+      if(entry != null && now < entry.staleUntil) {
+        refreshInBackground(key, flights, loader);
+        return type.cast(entry.value);
+      }
+      try {
+        return load(key, type, flights, loader);
+      } catch (RuntimeException e) {
+        if(entry != null && (System.currentTimeMillis() < entry.errorUntil || isCircuitOpen(e))) {
+          return type.cast(entry.value);
+        }
+        throw e;
+      }
+    }
+
+    // While the repository is not called at all, the last known response is better than none, however old it is
+    private static boolean isCircuitOpen(RuntimeException e) {
+      return e instanceof Api.Error && ((Api.Error) e).getCode() == Api.Error.Code.CIRCUIT_OPEN;
+    }
+
+    private <T> T load(String key, Class<T> type, ConcurrentMap<String, CompletableFuture<Object>> flights, Supplier<T> loader) {
+      CompletableFuture<Object> flight = new CompletableFuture<>();
+      CompletableFuture<Object> existing = flights.putIfAbsent(key, flight);
+      if(existing != null) {
+        return type.cast(await(existing));
+      }
+      try {
+        // The value may have been set by a flight that landed after our first lookup
+        T value = fresh(key, type);
+        if(value == null) {
+          value = loader.get();
+        }
+        flight.complete(value);
+        return value;
+      } catch (RuntimeException | Error e) {
+        flight.completeExceptionally(e);
+        throw e;
+      } finally {
+        flights.remove(key, flight);
+      }
+    }
+
+    private <T> T fresh(String key, Class<T> type) {
+      Entry entry = this.cache.get(key);
+      if (entry != null && type.isInstance(entry.value) && !entry.isExpired(System.currentTimeMillis())) {
+        return type.cast(entry.value);
+      }
+      return null;
+    }
+
+    private void refreshInBackground(final String key, final ConcurrentMap<String, CompletableFuture<Object>> flights, final Supplier<?> loader) {
+      if(flights.containsKey(key)) {
+        return;
+      }
+      final CompletableFuture<Object> flight = new CompletableFuture<>();
+      if(flights.putIfAbsent(key, flight) != null) {
+        return;
+      }
+      try {
+        this.executor.execute(() -> {
+          try {
+            flight.complete(loader.get());
+          } catch (Throwable e) {
+            // The stale entry keeps being served until the end of its window
+            flight.completeExceptionally(e);
+          } finally {
+            flights.remove(key, flight);
+          }
+        });
+      } catch (RuntimeException e) {
+        // Executor saturated or shut down: the next reader will try again
+        flights.remove(key, flight);
+      }
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+      try {
+        return flight.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    private static Executor refreshExecutor() {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+        Thread thread = new Thread(r, "prismic-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
     }
 
   }
@@ -11,7 +11,7 @@ import java.util.*;
 
 public class Document extends WithFragments {
 
-  private static final DateTimeFormatter PUBLICATION_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ");
+  static final DateTimeFormatter PUBLICATION_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssZ");
 
   private final String id;
   private final String uid;
@@ -30,13 +30,19 @@ public class Document extends WithFragments {
     this.uid = uid;
     this.type = type;
     this.href = href;
-    this.tags = Collections.unmodifiableSet(tags);
-    this.slugs = Collections.unmodifiableList(slugs);
+    this.tags = tags != null ? Collections.unmodifiableSet(tags) : Collections.emptySet();
+    this.slugs = slugs != null ? Collections.unmodifiableList(slugs) : Collections.emptyList();
     this.lang = lang;
-    this.alternateLanguages = Collections.unmodifiableList(alternateLanguages);
+    this.alternateLanguages = alternateLanguages != null ? Collections.unmodifiableList(alternateLanguages) : Collections.emptyList();
     this.firstPublicationDate = firstPublicationDate;
     this.lastPublicationDate = lastPublicationDate;
-    this.fragments = Collections.unmodifiableMap(fragments);
+    // Lazy fragments are read-only already, and must stay recognizable
+    if (fragments == null) {
+      this.fragments = Collections.emptyMap();
+    } else {
+      this.fragments = fragments instanceof LazyFragments ? fragments : Collections.unmodifiableMap(fragments);
+    }
+    indexFragments();
   }
 
   public String getId() {
@@ -91,6 +97,14 @@ public class Document extends WithFragments {
     return fragments;
   }
 
+  /**
+   * A document is rendered again once it is published again.
+   */
+  @Override
+  protected String renderVersion() {
+    return lastPublicationDate == null ? null : id + "@" + lastPublicationDate.toInstant().toEpochMilli();
+  }
+
   public Fragment.Group getGroup(String field) {
     Fragment fragment = get(field);
     if(fragment != null && fragment instanceof Fragment.Group) {
@@ -172,7 +186,38 @@ public class Document extends WithFragments {
     return fragments;
   }
 
+  /**
+   * Like {@link #parseFragments(JsonNode, String)}, but each fragment is only decoded when first read.
+   */
+  static Map<String, Fragment> parseFragmentsLazily(JsonNode json, String type) {
+    Iterator<String> dataJson = json.fieldNames();
+    LazyFragments fragments = new LazyFragments();
+    while(dataJson.hasNext()) {
+      String field = dataJson.next();
+      JsonNode fieldJson = json.path(field);
+
+      if(fieldJson.isArray()) {
+        for(int i=0; i<fieldJson.size(); i++) {
+          fragments.add(type + "." + field + "[" + i + "]", fieldJson.path(i).path("type").asText(), fieldJson.path(i).path("value"));
+        }
+      } else {
+        fragments.add(type + "." + field, fieldJson.path("type").asText(), fieldJson.path("value"));
+      }
+    }
+    return fragments;
+  }
+
   public static Document parse(JsonNode json) {
+    return parse(json, false);
+  }
+
+  /**
+   * @param json the document
+   * @param lazy true to decode each fragment only when it is first read, which is cheaper for documents
+   *             of which only a few fields are used, such as in listings
+   * @return the document
+   */
+  public static Document parse(JsonNode json, boolean lazy) {
     String id = json.path("id").asText();
     String uid = json.has("uid") ? json.path("uid").asText() : null;
     String href = json.path("href").asText();
@@ -209,7 +254,8 @@ public class Document extends WithFragments {
       }
     }
 
-    Map<String, Fragment> fragments = parseFragments(json.with("data").with(type), type);
+    JsonNode data = json.with("data").with(type);
+    Map<String, Fragment> fragments = lazy ? parseFragmentsLazily(data, type) : parseFragments(data, type);
 
     return new Document(id, uid, type, href, tags, slugs, lang, alternateLanguages, firstPublicationDate, lastPublicationDate, fragments);
   }
@@ -0,0 +1,287 @@
+package io.prismic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Batches document lookups by ID or UID into as few queries as possible.
+ *
+ * Create one loader per page or request, ask it for all the documents the page needs, then use them:
+ * the lookups are queued, and sent as <code>in</code> queries of up to {@link #MAX_BATCH} documents each,
+ * either when {@link #dispatch()} is called or when the first of the returned futures is waited for
+ * with <code>join</code> or <code>get</code>. The same document is only fetched once per loader.
+ *
+ * Example:
+ * <pre>
+ * DocumentLoader loader = new DocumentLoader(api);
+ * List&lt;CompletableFuture&lt;Document&gt;&gt; cards = new ArrayList&lt;&gt;();
+ * for (String id: ids) {
+ *   cards.add(loader.getByID(id));
+ * }
+ * for (CompletableFuture&lt;Document&gt; card: cards) {
+ *   render(card.join()); // One query for all the cards
+ * }
+ * </pre>
+ *
+ * Futures derived from the returned ones, with <code>thenApply</code> for instance, do not trigger the dispatch:
+ * call {@link #dispatch()} before waiting for them.
+ *
+ * The documents linked from a page can be fetched ahead of rendering with
+ * {@link #prefetchLinkedDocuments(Response, int)}, so that templates resolve links without further queries.
+ */
+public class DocumentLoader {
+
+  /**
+   * The maximum number of documents of a query, which is the maximum page size
+   */
+  public static final int MAX_BATCH = 100;
+
+  private final Api api;
+  private final Executor executor;
+  private final int maxConcurrency;
+  // By field, ref and language: the futures of every value asked for
+  private final Map<List<String>, Map<String, Pending>> loaded = new HashMap<>();
+  // By field, ref and language: the values not asked to the repository yet
+  private final Map<List<String>, List<String>> queued = new LinkedHashMap<>();
+
+  /**
+   * A loader sending its queries one at a time, on the thread dispatching them
+   */
+  public DocumentLoader(Api api) {
+    this.api = api;
+    this.executor = null;
+    this.maxConcurrency = 1;
+  }
+
+  /**
+   * @param executor runs the queries of a dispatch
+   * @param maxConcurrency the maximum number of queries of a dispatch running at once
+   */
+  public DocumentLoader(Api api, Executor executor, int maxConcurrency) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency must be positive");
+    }
+    this.api = api;
+    this.executor = executor;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  /**
+   * @return a future completed with the document, or with null if it doesn't exist
+   * @see Api#getByID(String, String, String)
+   */
+  public CompletableFuture<Document> getByID(String documentId, String ref, String lang) {
+    return load("document.id", documentId, ref, lang);
+  }
+
+  public CompletableFuture<Document> getByID(String documentId) {
+    return getByID(documentId, null, null);
+  }
+
+  /**
+   * @return a future completed with the document, or with null if it doesn't exist
+   * @see Api#getByUID(String, String, String, String)
+   */
+  public CompletableFuture<Document> getByUID(String documentType, String documentUID, String ref, String lang) {
+    return load("my." + documentType + ".uid", documentUID, ref, lang);
+  }
+
+  public CompletableFuture<Document> getByUID(String documentType, String documentUID) {
+    return getByUID(documentType, documentUID, null, null);
+  }
+
+  /**
+   * Send the queued lookups, one query per ref, language and type of lookup, and per {@link #MAX_BATCH} documents.
+   * Does nothing if there are none, returns once every query is answered.
+   */
+  public void dispatch() {
+    Map<List<String>, List<String>> batches;
+    synchronized (this) {
+      if (queued.isEmpty()) {
+        return;
+      }
+      batches = new LinkedHashMap<>(queued);
+      queued.clear();
+    }
+    Queue<Runnable> sends = new ConcurrentLinkedQueue<>();
+    for (Map.Entry<List<String>, List<String>> batch : batches.entrySet()) {
+      List<String> values = batch.getValue();
+      for (int from = 0; from < values.size(); from += MAX_BATCH) {
+        List<String> chunk = values.subList(from, Math.min(from + MAX_BATCH, values.size()));
+        sends.add(() -> send(batch.getKey(), chunk));
+      }
+    }
+    int workers = Math.min(maxConcurrency, sends.size());
+    if (executor == null || workers == 1) {
+      drain(sends);
+      return;
+    }
+    // Each worker sends queries until there are none left, so that at most maxConcurrency run at once
+    CompletableFuture<?>[] running = new CompletableFuture<?>[workers];
+    for (int i = 0; i < workers; i++) {
+      running[i] = CompletableFuture.runAsync(() -> drain(sends), executor);
+    }
+    CompletableFuture.allOf(running).join();
+  }
+
+  /**
+   * Fetch the documents linked from the results of a response, see {@link #prefetchLinkedDocuments(Collection, int, String)}.
+   */
+  public Map<String, Document> prefetchLinkedDocuments(Response response, int depth) {
+    return prefetchLinkedDocuments(response.getResults(), depth, null);
+  }
+
+  public Map<String, Document> prefetchLinkedDocuments(Document document, int depth) {
+    return prefetchLinkedDocuments(Collections.singletonList(document), depth, null);
+  }
+
+  /**
+   * Fetch the documents linked from the given ones, as returned by {@link WithFragments#getLinkedDocuments()},
+   * then the documents linked from those, and so on up to the given depth. Each level is fetched with a single dispatch.
+   *
+   * @param depth 1 for the documents linked from the given ones only
+   * @param ref the ref to fetch the documents from, or null for the default one
+   * @return the linked documents by id, broken links and documents not found being left out
+   */
+  public Map<String, Document> prefetchLinkedDocuments(Collection<? extends WithFragments> documents, int depth, String ref) {
+    Map<String, Document> result = new LinkedHashMap<>();
+    Collection<? extends WithFragments> level = documents;
+    for (int i = 0; i < depth && !level.isEmpty(); i++) {
+      Map<String, CompletableFuture<Document>> fetching = new LinkedHashMap<>();
+      for (WithFragments document : level) {
+        for (Fragment.DocumentLink link : document.getLinkedDocuments()) {
+          String id = link.getId();
+          if (!link.isBroken() && !result.containsKey(id) && !fetching.containsKey(id)) {
+            fetching.put(id, getByID(id, ref, null));
+          }
+        }
+      }
+      dispatch();
+      List<Document> fetched = new ArrayList<>();
+      for (CompletableFuture<Document> future : fetching.values()) {
+        Document document = result(future);
+        if (document != null) {
+          result.put(document.getId(), document);
+          fetched.add(document);
+        }
+      }
+      level = fetched;
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  private static Document result(CompletableFuture<Document> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static void drain(Queue<Runnable> sends) {
+    for (Runnable send = sends.poll(); send != null; send = sends.poll()) {
+      send.run();
+    }
+  }
+
+  private synchronized CompletableFuture<Document> load(String field, String value, String ref, String lang) {
+    List<String> batch = Arrays.asList(field, ref, lang != null ? lang : "*");
+    Map<String, Pending> futures = loaded.computeIfAbsent(batch, b -> new HashMap<>());
+    Pending future = futures.get(value);
+    if (future == null) {
+      future = new Pending();
+      futures.put(value, future);
+      queued.computeIfAbsent(batch, b -> new ArrayList<>()).add(value);
+    }
+    return future;
+  }
+
+  private void send(List<String> batch, List<String> values) {
+    String field = batch.get(0);
+    List<Pending> futures = new ArrayList<>(values.size());
+    synchronized (this) {
+      Map<String, Pending> loadedFutures = loaded.get(batch);
+      for (String value : values) {
+        futures.add(loadedFutures.get(value));
+      }
+    }
+    try {
+      Form.SearchForm query = api.query(Predicates.in(field, values))
+        .ref(batch.get(1))
+        .lang(batch.get(2))
+        .pageSize(MAX_BATCH);
+      boolean byId = "document.id".equals(field);
+      Map<String, Document> found = new HashMap<>();
+      // A value may match several documents, one per language: follow the pages until every value is found
+      for (int page = 1; ; page++) {
+        Response response = query.page(page).submit();
+        for (Document document : response.getResults()) {
+          // With several languages, the first one wins, as with Api.getByUID
+          found.putIfAbsent(byId ? document.getId() : document.getUid(), document);
+        }
+        if (found.size() >= values.size() || response.getNextPage() == null) {
+          break;
+        }
+      }
+      for (int i = 0; i < values.size(); i++) {
+        futures.get(i).complete(found.get(values.get(i)));
+      }
+    } catch (Throwable e) {
+      // Whatever happens, no future is left pending: join and get would block forever
+      for (Pending future : futures) {
+        future.completeExceptionally(e);
+      }
+      if (e instanceof Error) {
+        throw (Error) e;
+      }
+    }
+  }
+
+  /**
+   * A lookup's future, dispatching the queued lookups when it is waited for.
+   */
+  private class Pending extends CompletableFuture<Document> {
+
+    @Override
+    public Document join() {
+      dispatchIfPending();
+      return super.join();
+    }
+
+    @Override
+    public Document get() throws InterruptedException, ExecutionException {
+      dispatchIfPending();
+      return super.get();
+    }
+
+    @Override
+    public Document get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      dispatchIfPending();
+      return super.get(timeout, unit);
+    }
+
+    private void dispatchIfPending() {
+      if (!isDone()) {
+        dispatch();
+      }
+    }
+  }
+
+}
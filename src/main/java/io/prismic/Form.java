@@ -4,6 +4,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 import io.prismic.core.HttpClient;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A general usage RESTful form, manipulated by higher-level forms like {@link Form.SearchForm}.
@@ -128,6 +134,7 @@ public class Form {
     final private Api api;
     final private Form form;
     final private Map<String,List<String>> data;
+    private boolean lazy = false;
 
     public SearchForm(Api api, Form form) {
       this.api = api;
@@ -388,6 +395,17 @@ public class Form {
       return this.query("[" + result.toString() + "]");
     }
 
+    /**
+     * Decode the fragments of the returned documents only when they are first read, rather than all of them upfront.
+     * Worth it for listings that only display a few fields of each document.
+     *
+     * @return the current form, in order to chain those calls
+     */
+    public SearchForm lazy() {
+      this.lazy = true;
+      return this;
+    }
+
     /**
      * The method to call to perform and retrieve your query.
      *
@@ -396,6 +414,95 @@ public class Form {
      * @return the list of documents, that can be directly used as such.
      */
     public Response submit() {
+      return fetch(url(), lazy);
+    }
+
+    /**
+     * Perform the query on the given executor, without blocking the calling thread.
+     * The query is captured when this method is called: modifying the form afterwards doesn't affect it.
+     *
+     * Example, to run several queries in parallel and wait for all of them:
+     * <code>CompletableFuture.allOf(a.submitAsync(executor), b.submitAsync(executor)).join();</code>
+     *
+     * @param executor the executor performing the HTTP call and the parsing
+     * @return a future completed with the response, or completed exceptionally with an {@link Api.Error}
+     */
+    public CompletableFuture<Response> submitAsync(Executor executor) {
+      final String url;
+      try {
+        url = url();
+      } catch (Api.Error e) {
+        CompletableFuture<Response> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        return failed;
+      }
+      final boolean lazy = this.lazy;
+      return CompletableFuture.supplyAsync(() -> fetch(url, lazy), executor);
+    }
+
+    /**
+     * Iterate over the documents of all the pages of results, starting from the page set on this form (the first one
+     * by default). Each page is fetched when the previous one has been consumed, and can be garbage collected once
+     * it has been iterated over, so that a whole collection can be walked in constant memory.
+     * The query is captured when this method is called: modifying the form afterwards doesn't affect it.
+     *
+     * @return the documents; {@link Api.Error}s of the page fetches are thrown by <code>hasNext</code>
+     */
+    public Iterator<Document> iterator() {
+      return iterator(null);
+    }
+
+    /**
+     * @param prefetch fetches the next page while the current one is being consumed, or null to fetch each page
+     *                 only when it is needed
+     * @see #iterator()
+     */
+    public Iterator<Document> iterator(Executor prefetch) {
+      return new Pages(prefetch);
+    }
+
+    /**
+     * The documents of all the pages of results, see {@link #iterator()}.
+     *
+     * Example, to list the ids of all the articles: <code>api.query(Predicates.at("document.type", "article")).stream().map(Document::getId)</code>
+     */
+    public Stream<Document> stream() {
+      return stream(null);
+    }
+
+    /**
+     * @see #iterator(Executor)
+     */
+    public Stream<Document> stream(Executor prefetch) {
+      return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(prefetch), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Fetch all the pages of results concurrently, starting from the page set on this form (the first one by default),
+     * and hand them over to <code>consumer</code>. Meant for exports of whole collections: the first page tells how many
+     * pages there are, then up to <code>maxConcurrency</code> of the others are fetched at once. When the repository
+     * answers 429 Too Many Requests, the fetches back off and try again.
+     * The query is captured when this method is called.
+     *
+     * Example: <code>api.query().pageSize(100).fetchAllPages(executor, 4, false, page -&gt; export(page.getResults()));</code>
+     *
+     * @param executor performs the HTTP calls and the parsing
+     * @param maxConcurrency the maximum number of pages being fetched, or fetched and waiting to be consumed, at once
+     * @param ordered true to hand the pages over in order, false to hand each one over as soon as it is fetched
+     * @param consumer called on the calling thread, with one page at a time
+     * @throws Api.Error if a page cannot be fetched; the pages handed over before are not handed over again
+     */
+    public void fetchAllPages(Executor executor, int maxConcurrency, boolean ordered, Consumer<Response> consumer) {
+      final Map<String,List<String>> query = snapshot();
+      final boolean lazy = this.lazy;
+      new BulkFetch(page -> fetch(pageUrl(query, page), lazy), executor, maxConcurrency, ordered).run(firstPage(query), consumer);
+    }
+
+    String url() {
+      return url(data);
+    }
+
+    private String url(Map<String,List<String>> data) {
       if("GET".equals(form.getMethod()) && "application/x-www-form-urlencoded".equals(form.getEnctype())) {
         StringBuilder url = new StringBuilder(form.getAction());
         String sep = form.getAction().contains("?") ? "&" : "?";
@@ -408,13 +515,105 @@ public class Form {
             sep = "&";
           }
         }
-        JsonNode json = HttpClient.fetch(url.toString(), api.getLogger(), api.getCache(), api.getProxy());
-        return Response.parse(json);
+        return url.toString();
       } else {
         throw new Api.Error(Api.Error.Code.UNEXPECTED, "Form type not supported");
       }
     }
 
+    private Response fetch(String url, boolean lazy) {
+      if (lazy) {
+        return HttpClient.fetch(url, api.getLogger(), api.getCache(), api.getProxy(), api.getTransport(), Response.class,
+          json -> Response.parse(json, true), parser -> ResponseDecoder.decode(parser, true));
+      }
+      return HttpClient.fetch(url, api.getLogger(), api.getCache(), api.getProxy(), api.getTransport(), Response.class, Response::parse, ResponseDecoder::decode);
+    }
+
+    /**
+     * Walks the pages of results of a query, holding one page at a time (two when prefetching).
+     */
+    private class Pages implements Iterator<Document> {
+      private final Map<String,List<String>> query;
+      private final boolean lazy;
+      private final Executor prefetch;
+      private int page;
+      private boolean lastPage = false;
+      private Iterator<Document> current = Collections.emptyIterator();
+      private CompletableFuture<Response> next;
+
+      Pages(Executor prefetch) {
+        this.query = snapshot();
+        this.page = firstPage(query);
+        this.lazy = SearchForm.this.lazy;
+        this.prefetch = prefetch;
+        // Fail now rather than on the first hasNext if the form cannot be queried
+        url(query);
+      }
+
+      @Override
+      public boolean hasNext() {
+        while (!current.hasNext()) {
+          if (lastPage) {
+            return false;
+          }
+          Response response = nextPage();
+          lastPage = response.getNextPage() == null || response.getResults().isEmpty();
+          current = response.getResults().iterator();
+          if (!lastPage && prefetch != null) {
+            String url = pageUrl(query, page++);
+            next = CompletableFuture.supplyAsync(() -> fetch(url, lazy), prefetch);
+          }
+        }
+        return true;
+      }
+
+      @Override
+      public Document next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return current.next();
+      }
+
+      private Response nextPage() {
+        CompletableFuture<Response> prefetched = next;
+        if (prefetched == null) {
+          return fetch(pageUrl(query, page++), lazy);
+        }
+        next = null;
+        try {
+          return prefetched.join();
+        } catch (CompletionException e) {
+          if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+          }
+          throw e;
+        }
+      }
+    }
+
+    /**
+     * @return a copy of the current query, not affected by later changes to the form
+     */
+    private Map<String,List<String>> snapshot() {
+      Map<String,List<String>> query = new HashMap<>();
+      for(Map.Entry<String,List<String>> d: data.entrySet()) {
+        query.put(d.getKey(), new ArrayList<>(d.getValue()));
+      }
+      return query;
+    }
+
+    private static int firstPage(Map<String,List<String>> query) {
+      List<String> page = query.get("page");
+      return page != null && !page.isEmpty() ? Integer.parseInt(page.get(0)) : 1;
+    }
+
+    private String pageUrl(Map<String,List<String>> query, int page) {
+      Map<String,List<String>> pageQuery = new HashMap<>(query);
+      pageQuery.put("page", Collections.singletonList(String.valueOf(page)));
+      return url(pageQuery);
+    }
+
     public String toString() {
       StringBuilder dataStr = new StringBuilder();
       for(Map.Entry<String,List<String>> d: data.entrySet()) {
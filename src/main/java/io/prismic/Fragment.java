@@ -2,6 +2,8 @@ package io.prismic;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
+import java.io.IOException;
+
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -485,11 +487,12 @@ public interface Fragment {
       this.id = id;
       this.uid = uid;
       this.type = type;
-      this.tags = tags;
+      this.tags = tags != null ? Collections.unmodifiableSet(tags) : Collections.emptySet();
       this.slug = slug;
       this.lang = lang;
-      this.fragments = fragments;
+      this.fragments = fragments != null ? Collections.unmodifiableMap(fragments) : Collections.emptyMap();
       this.broken = broken;
+      indexFragments();
     }
 
     public String getUrl(LinkResolver resolver) {
@@ -653,7 +656,7 @@ public interface Fragment {
 
     public Image(View main, Map<String, View> views) {
       this.main = main;
-      this.views = views;
+      this.views = views != null ? Collections.unmodifiableMap(views) : Collections.emptyMap();
     }
 
     public Image(View main) {
@@ -672,6 +675,13 @@ public interface Fragment {
       return views.get(view);
     }
 
+    /**
+     * @return the views defined in the repository, other than "main"
+     */
+    public Map<String, View> getViews() {
+      return views;
+    }
+
     public String asHtml(LinkResolver linkResolver) {
       return getView("main").asHtml(linkResolver);
     }
@@ -736,14 +746,18 @@ public interface Fragment {
     }
 
     public String asHtml(LinkResolver linkResolver) {
+      return HtmlOutput.render(out -> asHtml(out, linkResolver));
+    }
+
+    public void asHtml(Appendable out, LinkResolver linkResolver) throws IOException {
       String className = "slice";
       if (this.label != null && !this.label.equals("null")) className += (" " + this.label);
       List<GroupDoc> groupDocs = new ArrayList<>(Collections.singletonList(this.nonRepeat));
       Group nonRepeat = this.nonRepeat != null ? new Group(groupDocs) : null;
-      return "<div data-slicetype=\"" + this.sliceType + "\" class=\"" + className + "\">" +
-        WithFragments.fragmentHtml(nonRepeat, linkResolver, null) +
-        WithFragments.fragmentHtml(this.repeat, linkResolver, null) +
-        "</div>";
+      out.append("<div data-slicetype=\"").append(this.sliceType).append("\" class=\"").append(className).append("\">");
+      WithFragments.fragmentHtml(out, nonRepeat, linkResolver, null);
+      WithFragments.fragmentHtml(out, this.repeat, linkResolver, null);
+      out.append("</div>");
     }
 
     public String getSliceType() {
@@ -779,11 +793,15 @@ public interface Fragment {
     }
 
     public String asHtml(LinkResolver linkResolver) {
+      return HtmlOutput.render(out -> asHtml(out, linkResolver));
+    }
+
+    public void asHtml(Appendable out, LinkResolver linkResolver) throws IOException {
       String className = "slice";
       if (this.label != null && !this.label.equals("null")) className += (" " + this.label);
-      return "<div data-slicetype=\"" + this.sliceType + "\" class=\"" + className + "\">" +
-        WithFragments.fragmentHtml(this.value, linkResolver, null) +
-        "</div>";
+      out.append("<div data-slicetype=\"").append(this.sliceType).append("\" class=\"").append(className).append("\">");
+      WithFragments.fragmentHtml(out, this.value, linkResolver, null);
+      out.append("</div>");
     }
 
     public String getSliceType() {
@@ -807,17 +825,19 @@ public interface Fragment {
     }
 
     public String asHtml(LinkResolver linkResolver) {
-      StringBuilder output = new StringBuilder();
+      return HtmlOutput.render(out -> asHtml(out, linkResolver));
+    }
+
+    public void asHtml(Appendable out, LinkResolver linkResolver) throws IOException {
       for (Slice slice: this.slices) {
         if (slice instanceof SimpleSlice){
           SimpleSlice simpleSlice = (SimpleSlice)slice;
-          output.append(simpleSlice.asHtml(linkResolver));
+          simpleSlice.asHtml(out, linkResolver);
         } else if (slice instanceof CompositeSlice){
           CompositeSlice compositeSlice = (CompositeSlice)slice;
-          output.append(compositeSlice.asHtml(linkResolver));
+          compositeSlice.asHtml(out, linkResolver);
         }
       }
-      return output.toString();
     }
 
     public static SliceZone parse(JsonNode json) {
@@ -870,7 +890,7 @@ public interface Fragment {
 
         public Heading(String text, List<Span> spans, int level, String label) {
           this.text = text;
-          this.spans = spans;
+          this.spans = spans != null ? Collections.unmodifiableList(spans) : Collections.emptyList();
           this.level = level;
           this.label = label;
         }
@@ -900,7 +920,7 @@ public interface Fragment {
 
         public Paragraph(String text, List<Span> spans, String label) {
           this.text = text;
-          this.spans = spans;
+          this.spans = spans != null ? Collections.unmodifiableList(spans) : Collections.emptyList();
           this.label = label;
         }
 
@@ -922,7 +942,7 @@ public interface Fragment {
 
         public Preformatted(String text, List<Span> spans, String label) {
           this.text = text;
-          this.spans = spans;
+          this.spans = spans != null ? Collections.unmodifiableList(spans) : Collections.emptyList();
           this.label = label;
         }
 
@@ -950,7 +970,7 @@ public interface Fragment {
 
         public ListItem(String text, List<Span> spans, boolean ordered, String label) {
           this.text = text;
-          this.spans = spans;
+          this.spans = spans != null ? Collections.unmodifiableList(spans) : Collections.emptyList();
           this.ordered = ordered;
           this.label = label;
         }
@@ -1122,7 +1142,7 @@ public interface Fragment {
     final List<Block> blocks;
 
     public StructuredText(List<Block> blocks) {
-      this.blocks = blocks;
+      this.blocks = blocks != null ? Collections.unmodifiableList(blocks) : Collections.emptyList();
     }
 
     public List<Block> getBlocks() {
@@ -1168,6 +1188,13 @@ public interface Fragment {
     }
 
     public String asHtml(List<Block> blocks, LinkResolver linkResolver, HtmlSerializer htmlSerializer) {
+      return HtmlOutput.render(out -> asHtml(out, blocks, linkResolver, htmlSerializer));
+    }
+
+    /**
+     * Write the HTML of the blocks to <code>out</code>, such as a servlet response's Writer, rather than building a String.
+     */
+    public void asHtml(Appendable out, List<Block> blocks, LinkResolver linkResolver, HtmlSerializer htmlSerializer) throws IOException {
       List<BlockGroup> blockGroups = new ArrayList<>();
       for(Block block: blocks) {
         BlockGroup lastOne = blockGroups.isEmpty() ? null : blockGroups.get(blockGroups.size() - 1);
@@ -1193,7 +1220,7 @@ public interface Fragment {
           blockGroups.add(newBlockGroup);
         }
       }
-      StringBuilder html = new StringBuilder();
+      Appendable html = HtmlOutput.withLineBreaks(out);
       for(BlockGroup blockGroup: blockGroups) {
         if(blockGroup.tag != null) {
           html.append("<").append(blockGroup.tag).append(">");
@@ -1207,7 +1234,6 @@ public interface Fragment {
           }
         }
       }
-      return convertLineSeparatorsToHtmlLineBreaks(html.toString());
     }
 
     public String asHtml(Block block, LinkResolver linkResolver, HtmlSerializer htmlSerializer) {
@@ -1270,10 +1296,6 @@ public interface Fragment {
       }
     }
 
-    private String convertLineSeparatorsToHtmlLineBreaks(String html) {
-      return html.replaceAll("\n", "<br/>");
-    }
-
     private static String serialize(Span span, String content, LinkResolver linkResolver, HtmlSerializer htmlSerializer) {
       if (htmlSerializer != null) {
         String customHtml = htmlSerializer.serialize(span, content);
@@ -1319,72 +1341,53 @@ public interface Fragment {
         return escape(text);
       }
 
-      Map<Integer, List<Span>> tagsStart = new HashMap<>();
-      Map<Integer, List<Span>> tagsEnd = new HashMap<>();
-
+      // Spans opening and closing at each position, in their original order
+      TreeMap<Integer, List<Span>> tagsStart = new TreeMap<>();
+      TreeMap<Integer, List<Span>> tagsEnd = new TreeMap<>();
       for (Span span: spans) {
-        if (!tagsStart.containsKey(span.getStart())) {
-          tagsStart.put(span.getStart(), new ArrayList<>());
-        }
-        if (!tagsEnd.containsKey(span.getEnd())) {
-          tagsEnd.put(span.getEnd(), new ArrayList<>());
-        }
-        tagsStart.get(span.getStart()).add(span);
-        tagsEnd.get(span.getEnd()).add(span);
-      }
-
-      char c;
-      StringBuilder html = new StringBuilder();
-      Stack<Tuple<Span, String>> stack = new Stack<>();
-      for (int pos = 0, len = text.length(); pos < len; pos++) {
-        if (tagsEnd.containsKey(pos)) {
-          for (Span span: tagsEnd.get(pos)) {
-            // Close a tag
-            Tuple<Span, String> tag = stack.pop();
-            String innerHtml = serialize(tag.x, tag.y, linkResolver, htmlSerializer);
-            if (stack.isEmpty()) {
-              // The tag was top level
-              html.append(innerHtml);
-            } else {
-              // Add the content to the parent tag
-              Tuple<Span, String> head = stack.pop();
-              stack.push(new Tuple<>(head.x, head.y + innerHtml));
-            }
+        tagsStart.computeIfAbsent(span.getStart(), k -> new ArrayList<>(1)).add(span);
+        tagsEnd.computeIfAbsent(span.getEnd(), k -> new ArrayList<>(1)).add(span);
+      }
+      TreeSet<Integer> positions = new TreeSet<>(tagsStart.keySet());
+      positions.addAll(tagsEnd.keySet());
+
+      int len = text.length();
+      StringBuilder html = new StringBuilder(len + 16 * spans.size());
+      // The open spans, with their inner HTML so far
+      Deque<Tuple<Span, StringBuilder>> stack = new ArrayDeque<>();
+      int pos = 0;
+      for (int position: positions.subSet(0, true, len, false)) {
+        // Text up to the next tag goes into the innermost open span
+        escape(text, pos, position, stack.isEmpty() ? html : stack.peek().y);
+        pos = position;
+        List<Span> closing = tagsEnd.get(position);
+        if (closing != null) {
+          for (int i = 0; i < closing.size(); i++) {
+            closeTag(stack, html, linkResolver, htmlSerializer);
           }
         }
-        if (tagsStart.containsKey(pos)) {
-          for (Span span: tagsStart.get(pos)) {
-            // Open a tag
-            stack.push(new Tuple<>(span, ""));
+        List<Span> opening = tagsStart.get(position);
+        if (opening != null) {
+          for (Span span: opening) {
+            stack.push(new Tuple<>(span, new StringBuilder()));
           }
         }
-        c = text.charAt(pos);
-        String escaped = escape(Character.toString(c));
-        if (stack.isEmpty()) {
-          // Top-level text
-          html.append(escaped);
-        } else {
-          // Inner text of a span
-          Tuple<Span, String> head = stack.pop();
-          stack.push(new Tuple<>(head.x, head.y + escaped));
-        }
       }
+      escape(text, pos, len, stack.isEmpty() ? html : stack.peek().y);
       // Close remaining tags
-      while (!stack.empty()) {
-        Tuple<Span, String> tag = stack.pop();
-        String innerHtml = serialize(tag.x, tag.y, linkResolver, htmlSerializer);
-        if (stack.isEmpty()) {
-          // The tag was top level
-          html.append(innerHtml);
-        } else {
-          // Add the content to the parent tag
-          Tuple<Span, String> head = stack.pop();
-          stack.push(new Tuple<>(head.x, head.y + innerHtml));
-        }
+      while (!stack.isEmpty()) {
+        closeTag(stack, html, linkResolver, htmlSerializer);
       }
       return html.toString();
     }
 
+    private static void closeTag(Deque<Tuple<Span, StringBuilder>> stack, StringBuilder html, LinkResolver linkResolver, HtmlSerializer htmlSerializer) {
+      Tuple<Span, StringBuilder> tag = stack.pop();
+      String innerHtml = serialize(tag.x, tag.y.toString(), linkResolver, htmlSerializer);
+      // Into the parent tag, or at the top level
+      (stack.isEmpty() ? html : stack.peek().y).append(innerHtml);
+    }
+
     public String asHtml(LinkResolver linkResolver) {
       return asHtml(linkResolver, null);
     }
@@ -1393,8 +1396,41 @@ public interface Fragment {
       return asHtml(getBlocks(), linkResolver, htmlSerializer);
     }
 
+    public void asHtml(Appendable out, LinkResolver linkResolver) throws IOException {
+      asHtml(out, linkResolver, null);
+    }
+
+    public void asHtml(Appendable out, LinkResolver linkResolver, HtmlSerializer htmlSerializer) throws IOException {
+      asHtml(out, getBlocks(), linkResolver, htmlSerializer);
+    }
+
     static String escape(String input) {
-      return input.replaceAll("&", "&amp;").replaceAll("<", "&lt;").replaceAll(">", "&gt;");
+      StringBuilder escaped = new StringBuilder(input.length() + 16);
+      escape(input, 0, input.length(), escaped);
+      return escaped.toString();
+    }
+
+    private static void escape(String input, int start, int end, StringBuilder out) {
+      int from = start;
+      for (int i = start; i < end; i++) {
+        String entity;
+        switch (input.charAt(i)) {
+          case '&':
+            entity = "&amp;";
+            break;
+          case '<':
+            entity = "&lt;";
+            break;
+          case '>':
+            entity = "&gt;";
+            break;
+          default:
+            continue;
+        }
+        out.append(input, from, i).append(entity);
+        from = i + 1;
+      }
+      out.append(input, from, end);
     }
 
     // --
@@ -1454,7 +1490,7 @@ public interface Fragment {
 
       public ParsedText(String text, List<Span> spans) {
         this.text = text;
-        this.spans = spans;
+        this.spans = spans != null ? Collections.unmodifiableList(spans) : Collections.emptyList();
       }
     }
 
@@ -1550,11 +1586,13 @@ public interface Fragment {
     }
 
     public String asHtml(LinkResolver linkResolver) {
-      StringBuilder sb = new StringBuilder();
+      return HtmlOutput.render(out -> asHtml(out, linkResolver));
+    }
+
+    public void asHtml(Appendable out, LinkResolver linkResolver) throws IOException {
       for (GroupDoc groupDoc: this.groupDocs) {
-        sb.append(groupDoc.asHtml(linkResolver));
+        groupDoc.asHtml(out, linkResolver);
       }
-      return sb.toString();
     }
 
     // --
@@ -9,6 +9,7 @@ public class GroupDoc extends WithFragments {
 
   public GroupDoc(Map<String, Fragment> fragments) {
     this.fragments = Collections.unmodifiableMap(fragments);
+    indexFragments();
   }
 
   @Override
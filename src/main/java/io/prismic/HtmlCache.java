@@ -0,0 +1,144 @@
+package io.prismic;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the HTML rendered for documents, so that pages rendering the same fragments again and again
+ * only render them once per version of the document.
+ *
+ * Entries are keyed by the ref the document was queried with, document id and last publication date, field,
+ * {@link LinkResolver} and {@link HtmlSerializer}: a preview or a release may hold different content for the same
+ * document and date, so it never gets the HTML rendered for another ref. The resolver and the serializer are compared
+ * by identity, so the same instances must be passed for every render for the cache to be hit. Documents without
+ * a publication date are not cached, nor are group documents and document links, which have no version of their own.
+ *
+ * Example: <code>doc.getHtml("article.body", api.getMaster().getRef(), linkResolver, null, htmlCache)</code>
+ */
+public class HtmlCache {
+
+  private final StripedLruMap<Key, String> html;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * @param maxEntries the number of rendered fragments or documents to keep, the least recently used ones being evicted
+   */
+  public HtmlCache(int maxEntries) {
+    this.html = new StripedLruMap<>(maxEntries, (key, value) -> evictions.increment());
+  }
+
+  /**
+   * @param ref the ref the document was queried with
+   * @param version the document and its version, see {@link WithFragments#renderVersion()}
+   * @param field the rendered field, or null for the whole document
+   * @param render renders the HTML on a miss
+   */
+  String getOrRender(String ref, String version, String field, LinkResolver linkResolver, HtmlSerializer htmlSerializer, Supplier<String> render) {
+    Key key = new Key(ref, version, field, linkResolver, htmlSerializer);
+    String cached = html.get(key);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    // Two threads may render the same entry at once: they produce the same HTML
+    String rendered = render.get();
+    html.put(key, rendered);
+    return rendered;
+  }
+
+  public Stats getStats() {
+    return new Stats(html.size(), hits.sum(), misses.sum(), evictions.sum());
+  }
+
+  public static class Stats {
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    public Stats(int size, long hits, long misses, long evictions) {
+      this.size = size;
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+    }
+
+    /**
+     * @return the number of entries currently cached
+     */
+    public int getSize() {
+      return size;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    /**
+     * @return the number of entries dropped to make room for new ones
+     */
+    public long getEvictions() {
+      return evictions;
+    }
+
+    /**
+     * @return the share of lookups that were hits, between 0 and 1
+     */
+    public double getHitRate() {
+      long lookups = hits + misses;
+      return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+      return "HtmlCache.Stats{size=" + size + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+  }
+
+  private static class Key {
+    private final String ref;
+    private final String version;
+    private final String field;
+    private final LinkResolver linkResolver;
+    private final HtmlSerializer htmlSerializer;
+
+    Key(String ref, String version, String field, LinkResolver linkResolver, HtmlSerializer htmlSerializer) {
+      this.ref = ref;
+      this.version = version;
+      this.field = field;
+      this.linkResolver = linkResolver;
+      this.htmlSerializer = htmlSerializer;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return ref.equals(other.ref)
+        && version.equals(other.version)
+        && (field == null ? other.field == null : field.equals(other.field))
+        && linkResolver == other.linkResolver
+        && htmlSerializer == other.htmlSerializer;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = ref.hashCode();
+      hash = 31 * hash + version.hashCode();
+      hash = 31 * hash + (field == null ? 0 : field.hashCode());
+      hash = 31 * hash + System.identityHashCode(linkResolver);
+      hash = 31 * hash + System.identityHashCode(htmlSerializer);
+      return hash;
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+package io.prismic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Helpers for the methods rendering HTML to an {@link Appendable}.
+ */
+class HtmlOutput {
+
+  private HtmlOutput() {}
+
+  interface Renderer {
+    void render(Appendable out) throws IOException;
+  }
+
+  /**
+   * @return what the renderer writes, for the methods returning the HTML as a String
+   */
+  static String render(Renderer renderer) {
+    StringBuilder html = new StringBuilder();
+    try {
+      renderer.render(html);
+    } catch (IOException e) {
+      // Never happens with a StringBuilder
+      throw new UncheckedIOException(e);
+    }
+    return html.toString();
+  }
+
+  /**
+   * @return an Appendable writing <code>&lt;br/&gt;</code> to <code>out</code> for every line separator
+   */
+  static Appendable withLineBreaks(Appendable out) {
+    return new LineBreaks(out);
+  }
+
+  private static class LineBreaks implements Appendable {
+    private final Appendable out;
+
+    LineBreaks(Appendable out) {
+      this.out = out;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+      return csq == null ? append("null") : append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+      if (csq == null) {
+        return append("null", start, end);
+      }
+      int from = start;
+      for (int i = start; i < end; i++) {
+        if (csq.charAt(i) == '\n') {
+          out.append(csq, from, i).append("<br/>");
+          from = i + 1;
+        }
+      }
+      out.append(csq, from, end);
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+      if (c == '\n') {
+        out.append("<br/>");
+      } else {
+        out.append(c);
+      }
+      return this;
+    }
+  }
+
+}
@@ -0,0 +1,194 @@
+package io.prismic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The fragments of a document, each one kept as its JSON value until it is first read.
+ *
+ * Reading a fragment decodes it once and memoizes it, so that lazy documents can be shared between threads,
+ * for instance through the cache. Iterating over the keys decodes nothing; iterating over the values
+ * decodes each fragment as it is reached.
+ */
+class LazyFragments extends AbstractMap<String, Fragment> {
+
+  private final Map<String, Slot> slots = new LinkedHashMap<>();
+  private Set<Map.Entry<String, Fragment>> entrySet;
+
+  /**
+   * Only to be called while building the map, before it is published.
+   */
+  void add(String name, String type, JsonNode value) {
+    slots.put(name, new Slot(type, value));
+  }
+
+  @Override
+  public Fragment get(Object key) {
+    Slot slot = slots.get(key);
+    return slot != null ? slot.fragment() : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return slots.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return slots.size();
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return Collections.unmodifiableSet(slots.keySet());
+  }
+
+  @Override
+  public Set<Map.Entry<String, Fragment>> entrySet() {
+    Set<Map.Entry<String, Fragment>> entries = entrySet;
+    if (entries == null) {
+      entries = new AbstractSet<Map.Entry<String, Fragment>>() {
+        @Override
+        public Iterator<Map.Entry<String, Fragment>> iterator() {
+          final Iterator<Map.Entry<String, Slot>> iterator = slots.entrySet().iterator();
+          return new Iterator<Map.Entry<String, Fragment>>() {
+            @Override
+            public boolean hasNext() {
+              return iterator.hasNext();
+            }
+
+            @Override
+            public Map.Entry<String, Fragment> next() {
+              return new LazyEntry(iterator.next());
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return slots.size();
+        }
+      };
+      entrySet = entries;
+    }
+    return entries;
+  }
+
+  /**
+   * @return the number of fragments decoded so far
+   */
+  int decoded() {
+    int decoded = 0;
+    for (Slot slot : slots.values()) {
+      if (slot.fragment != null) {
+        decoded++;
+      }
+    }
+    return decoded;
+  }
+
+  /**
+   * @return the JSON values not decoded yet, for memory accounting
+   */
+  Iterable<JsonNode> pending() {
+    List<JsonNode> pending = new ArrayList<>();
+    for (Slot slot : slots.values()) {
+      JsonNode value = slot.value;
+      if (value != null) {
+        pending.add(value);
+      }
+    }
+    return pending;
+  }
+
+  /**
+   * @return the fragments decoded so far, for memory accounting
+   */
+  Iterable<Fragment> decodedFragments() {
+    List<Fragment> decoded = new ArrayList<>();
+    for (Slot slot : slots.values()) {
+      Fragment fragment = slot.fragment;
+      if (fragment != null) {
+        decoded.add(fragment);
+      }
+    }
+    return decoded;
+  }
+
+  // --
+
+  private static class Slot {
+    private final String type;
+    private volatile JsonNode value;
+    private volatile Fragment fragment;
+
+    Slot(String type, JsonNode value) {
+      this.type = type;
+      this.value = value;
+    }
+
+    Fragment fragment() {
+      Fragment decoded = fragment;
+      if (decoded == null) {
+        synchronized (this) {
+          decoded = fragment;
+          if (decoded == null) {
+            decoded = Document.parseFragment(type, value);
+            fragment = decoded;
+            // The JSON is not needed anymore
+            value = null;
+          }
+        }
+      }
+      return decoded;
+    }
+  }
+
+  private static class LazyEntry implements Map.Entry<String, Fragment> {
+    private final Map.Entry<String, Slot> entry;
+
+    LazyEntry(Map.Entry<String, Slot> entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public String getKey() {
+      return entry.getKey();
+    }
+
+    @Override
+    public Fragment getValue() {
+      return entry.getValue().fragment();
+    }
+
+    @Override
+    public Fragment setValue(Fragment value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+      return getKey().equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return getKey().hashCode() ^ Objects.hashCode(getValue());
+    }
+  }
+
+}
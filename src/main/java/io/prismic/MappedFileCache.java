@@ -0,0 +1,412 @@
+package io.prismic;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.prismic.core.Json;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A cache storing serialized responses off-heap, in a memory-mapped file.
+ *
+ * Several JVMs on the same host can share the file, and a restarted JVM finds the responses cached by
+ * its previous run. It is meant as a second tier behind an on-heap cache, see {@link Cache.TieredCache}.
+ *
+ * The file holds an index of <code>maxEntries</code> slots, each key having the choice between two adjacent slots,
+ * and a ring buffer of <code>maxBytes</code> where records are appended: the oldest records are overwritten first,
+ * and a key replaces the older of the two keys sharing its slots. Writers serialize through a file lock, readers do not lock:
+ * they check each record against its checksum and drop it if it was overwritten while being read.
+ */
+public class MappedFileCache implements Cache, Closeable {
+
+  private static final int MAGIC = 0x50524d43;
+  private static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 64;
+  private static final int HEADER_MAGIC = 0;
+  private static final int HEADER_VERSION = 4;
+  private static final int HEADER_SLOTS = 8;
+  private static final int HEADER_DATA_SIZE = 12;
+  private static final int HEADER_HEAD = 16;
+
+  private static final int SLOT_SIZE = 24;
+  private static final int SLOT_HASH = 0;
+  private static final int SLOT_POSITION = 8;
+  private static final int SLOT_LENGTH = 16;
+
+  private static final int RECORD_LENGTH = 0;
+  private static final int RECORD_CRC = 4;
+  private static final int RECORD_HASH = 8;
+  private static final int RECORD_EXPIRATION = 16;
+  private static final int RECORD_STALE_UNTIL = 24;
+  private static final int RECORD_ERROR_UNTIL = 32;
+  private static final int RECORD_KEY_LENGTH = 40;
+  private static final int RECORD_HEADER_SIZE = 44;
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  // File locks are held by the whole JVM, so instances sharing a file must also share an in-JVM lock
+  private static final ConcurrentMap<String, ReentrantLock> fileLocks = new ConcurrentHashMap<>();
+
+  private final RandomAccessFile file;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final ReentrantLock lock;
+  private final int slots;
+  private final int dataSize;
+  private final int dataStart;
+  private final ConcurrentMap<String, String> masterRefs = new ConcurrentHashMap<>();
+
+  // The stale date of a record stored without a window, leaving it to the cache the record is promoted to
+  static final long UNSPECIFIED = -1L;
+
+  /**
+   * A record read from the file, with its absolute expiration dates.
+   */
+  static class Record {
+    final JsonNode value;
+    final long expiration;
+    final long staleUntil;
+    final long errorUntil;
+
+    Record(JsonNode value, long expiration, long staleUntil, long errorUntil) {
+      this.value = value;
+      this.expiration = expiration;
+      this.staleUntil = staleUntil;
+      this.errorUntil = errorUntil;
+    }
+
+    /**
+     * @return the stale-while-revalidate window the record was stored with, or null if it had none
+     */
+    Long staleWhileRevalidate() {
+      return staleUntil != UNSPECIFIED ? staleUntil - expiration : null;
+    }
+
+    /**
+     * @return the stale-if-error window the record was stored with, or null if it had none
+     */
+    Long staleIfError() {
+      return errorUntil != UNSPECIFIED ? errorUntil - expiration : null;
+    }
+  }
+
+  /**
+   * Open the cache file, or create it. An existing file is reused as is if it was created with the same sizes,
+   * and reset otherwise.
+   *
+   * @param path the cache file
+   * @param maxEntries the number of index slots, rounded up to a power of two
+   * @param maxBytes the size of the data area; the whole file must fit in 2GB
+   * @throws IOException if the file cannot be opened or mapped
+   */
+  // The file lock is held by the try-with-resources, never referenced
+  @SuppressWarnings("try")
+  public MappedFileCache(File path, int maxEntries, int maxBytes) throws IOException {
+    if (maxEntries < 1 || maxBytes < RECORD_HEADER_SIZE) {
+      throw new IllegalArgumentException("Cache file too small");
+    }
+    int slots = 1;
+    while (slots < maxEntries && slots < (1 << 26)) {
+      slots <<= 1;
+    }
+    this.slots = slots;
+    this.dataSize = maxBytes;
+    this.dataStart = HEADER_SIZE + slots * SLOT_SIZE;
+    long fileSize = (long) dataStart + dataSize;
+    if (fileSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Cache file too large: " + fileSize + " bytes");
+    }
+    this.lock = fileLocks.computeIfAbsent(path.getCanonicalPath(), p -> new ReentrantLock());
+    this.file = new RandomAccessFile(path, "rw");
+    try {
+      this.channel = file.getChannel();
+      this.lock.lock();
+      try (FileLock ignored = channel.lock(0, HEADER_SIZE, false)) {
+        boolean reuse = file.length() == fileSize;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        reuse = reuse && buffer.getInt(HEADER_MAGIC) == MAGIC && buffer.getInt(HEADER_VERSION) == VERSION
+          && buffer.getInt(HEADER_SLOTS) == slots && buffer.getInt(HEADER_DATA_SIZE) == dataSize;
+        if (!reuse) {
+          for (int i = 0; i < dataStart; i += 8) {
+            buffer.putLong(i, 0L);
+          }
+          buffer.putInt(HEADER_VERSION, VERSION);
+          buffer.putInt(HEADER_SLOTS, slots);
+          buffer.putInt(HEADER_DATA_SIZE, dataSize);
+          buffer.putLong(HEADER_HEAD, 0L);
+          buffer.putInt(HEADER_MAGIC, MAGIC);
+        }
+      } finally {
+        this.lock.unlock();
+      }
+    } catch (IOException | RuntimeException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public JsonNode get(String key) {
+    Record record = read(key);
+    if (record != null && !isExpired(record.expiration, System.currentTimeMillis())) {
+      return record.value;
+    }
+    return null;
+  }
+
+  @Override
+  public void set(String key, Long ttl, JsonNode response) {
+    set(key, ttl, null, null, response);
+  }
+
+  @Override
+  public void set(String key, Long ttl, Long staleWhileRevalidate, Long staleIfError, JsonNode response) {
+    long expiration = ttl + System.currentTimeMillis();
+    long staleUntil = staleWhileRevalidate != null ? expiration + staleWhileRevalidate : UNSPECIFIED;
+    long errorUntil = staleIfError != null ? expiration + staleIfError : UNSPECIFIED;
+    byte[] value;
+    try {
+      value = mapper.writeValueAsBytes(response);
+    } catch (IOException e) {
+      throw new Api.Error(Api.Error.Code.UNEXPECTED, e);
+    }
+    write(key, expiration, staleUntil, errorUntil, value);
+  }
+
+  @Override
+  public JsonNode getOrSet(String key, Long ttl, Callback f) {
+    JsonNode found = get(key);
+    if (found != null) {
+      return found;
+    }
+    JsonNode json = f.execute();
+    set(key, ttl, json);
+    return json;
+  }
+
+  /**
+   * Drop the entries of a ref. This scans the whole index, which is fine for the occasional master ref change.
+   */
+  @Override
+  public void invalidateRef(String ref) {
+    for (int slot = 0; slot < slots; slot++) {
+      String key = readKey(slot);
+      if (key != null && ref.equals(BuiltInCache.refOf(key))) {
+        clear(slot, key);
+      }
+    }
+  }
+
+  @Override
+  public void updateMasterRef(String repository, String ref) {
+    String previous = this.masterRefs.put(repository, ref);
+    if (previous != null && !previous.equals(ref)) {
+      invalidateRef(previous);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+  // --
+
+  Record read(String key) {
+    byte[] keyBytes = key.getBytes(UTF_8);
+    long hash = hash(keyBytes);
+    int slot = slotOf(hash);
+    ByteBuffer record = readRecord(slot, hash);
+    if (record == null || !sameKey(record, keyBytes)) {
+      record = readRecord(slot ^ 1, hash);
+      if (record == null || !sameKey(record, keyBytes)) {
+        return null;
+      }
+    }
+    int valueStart = RECORD_HEADER_SIZE + keyBytes.length;
+    try (JsonParser parser = Json.createParser(record.array(), valueStart, record.capacity() - valueStart)) {
+      JsonNode value = Json.getReader().readTree(parser);
+      return new Record(value, record.getLong(RECORD_EXPIRATION), record.getLong(RECORD_STALE_UNTIL), record.getLong(RECORD_ERROR_UNTIL));
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  // The file lock is held by the try-with-resources, never referenced
+  @SuppressWarnings("try")
+  private void write(String key, long expiration, long staleUntil, long errorUntil, byte[] value) {
+    byte[] keyBytes = key.getBytes(UTF_8);
+    int length = RECORD_HEADER_SIZE + keyBytes.length + value.length;
+    if (length > dataSize / 4) {
+      // Would evict too much at once
+      return;
+    }
+    long hash = hash(keyBytes);
+    ByteBuffer record = ByteBuffer.allocate(length);
+    record.putInt(RECORD_LENGTH, length);
+    record.putLong(RECORD_HASH, hash);
+    record.putLong(RECORD_EXPIRATION, expiration);
+    record.putLong(RECORD_STALE_UNTIL, staleUntil);
+    record.putLong(RECORD_ERROR_UNTIL, errorUntil);
+    record.putInt(RECORD_KEY_LENGTH, keyBytes.length);
+    record.position(RECORD_HEADER_SIZE);
+    record.put(keyBytes);
+    record.put(value);
+    record.putInt(RECORD_CRC, crc(record.array(), length));
+
+    lock.lock();
+    try (FileLock ignored = channel.lock(0, HEADER_SIZE, false)) {
+      int slotStart = HEADER_SIZE + victim(slotOf(hash), hash) * SLOT_SIZE;
+      long head = buffer.getLong(HEADER_HEAD);
+      int offset = (int) (head % dataSize);
+      if (offset + length > dataSize) {
+        // Records are contiguous: skip the end of the ring
+        head += dataSize - offset;
+        offset = 0;
+      }
+      // Move the head first, so that readers stop trusting the records about to be overwritten
+      buffer.putLong(HEADER_HEAD, head + length);
+      ByteBuffer target = buffer.duplicate();
+      target.position(dataStart + offset);
+      target.put(record.array(), 0, length);
+      buffer.putLong(slotStart + SLOT_POSITION, head);
+      buffer.putInt(slotStart + SLOT_LENGTH, length);
+      buffer.putLong(slotStart + SLOT_HASH, hash);
+    } catch (IOException e) {
+      // The shared tier is best effort: the value is still returned to the caller
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Pick the slot to write a key to: the one it already has, else a free one, else the one of the oldest record.
+   */
+  private int victim(int slot, long hash) {
+    int other = slot ^ 1;
+    if (slots == 1 || buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE + SLOT_HASH) == hash) {
+      return slot;
+    }
+    if (buffer.getLong(HEADER_SIZE + other * SLOT_SIZE + SLOT_HASH) == hash) {
+      return other;
+    }
+    long position = buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE + SLOT_POSITION);
+    long otherPosition = buffer.getLong(HEADER_SIZE + other * SLOT_SIZE + SLOT_POSITION);
+    boolean free = !isLive(position, buffer.getInt(HEADER_SIZE + slot * SLOT_SIZE + SLOT_LENGTH))
+      || buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE + SLOT_HASH) == 0;
+    boolean otherFree = !isLive(otherPosition, buffer.getInt(HEADER_SIZE + other * SLOT_SIZE + SLOT_LENGTH))
+      || buffer.getLong(HEADER_SIZE + other * SLOT_SIZE + SLOT_HASH) == 0;
+    if (free != otherFree) {
+      return free ? slot : other;
+    }
+    return position <= otherPosition ? slot : other;
+  }
+
+  private ByteBuffer readRecord(int slot, long hash) {
+    int slotStart = HEADER_SIZE + slot * SLOT_SIZE;
+    if (buffer.getLong(slotStart + SLOT_HASH) != hash) {
+      return null;
+    }
+    long position = buffer.getLong(slotStart + SLOT_POSITION);
+    int length = buffer.getInt(slotStart + SLOT_LENGTH);
+    if (length < RECORD_HEADER_SIZE || length > dataSize || !isLive(position, length)) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    ByteBuffer source = buffer.duplicate();
+    source.position(dataStart + (int) (position % dataSize));
+    source.get(bytes);
+    ByteBuffer record = ByteBuffer.wrap(bytes);
+    // Checked after copying: the writer may have overwritten the record meanwhile
+    if (!isLive(position, length) || record.getInt(RECORD_LENGTH) != length || record.getLong(RECORD_HASH) != hash
+      || record.getInt(RECORD_CRC) != crc(bytes, length)) {
+      return null;
+    }
+    return record;
+  }
+
+  private String readKey(int slot) {
+    long hash = buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE + SLOT_HASH);
+    ByteBuffer record = hash != 0 ? readRecord(slot, hash) : null;
+    if (record == null) {
+      return null;
+    }
+    return new String(record.array(), RECORD_HEADER_SIZE, record.getInt(RECORD_KEY_LENGTH), UTF_8);
+  }
+
+  // The file lock is held by the try-with-resources, never referenced
+  @SuppressWarnings("try")
+  private void clear(int slot, String key) {
+    lock.lock();
+    try (FileLock ignored = channel.lock(0, HEADER_SIZE, false)) {
+      // Another key may have taken the slot since it was read
+      if (key.equals(readKey(slot))) {
+        buffer.putLong(HEADER_SIZE + slot * SLOT_SIZE + SLOT_HASH, 0L);
+      }
+    } catch (IOException e) {
+      // Best effort, as for writes
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean isLive(long position, int length) {
+    long head = buffer.getLong(HEADER_HEAD);
+    return position >= 0 && position + length <= head && head - position <= dataSize;
+  }
+
+  private static boolean sameKey(ByteBuffer record, byte[] keyBytes) {
+    if (record.getInt(RECORD_KEY_LENGTH) != keyBytes.length) {
+      return false;
+    }
+    byte[] bytes = record.array();
+    for (int i = 0; i < keyBytes.length; i++) {
+      if (bytes[RECORD_HEADER_SIZE + i] != keyBytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int slotOf(long hash) {
+    return (int) (hash ^ (hash >>> 32)) & (slots - 1);
+  }
+
+  static boolean isExpired(long expiration, long now) {
+    return expiration != 0 && expiration < now;
+  }
+
+  private static int crc(byte[] bytes, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes, RECORD_HASH, length - RECORD_HASH);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * 64-bit FNV-1a of the UTF-8 key, never 0 as 0 marks empty slots.
+   */
+  private static long hash(byte[] bytes) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : bytes) {
+      hash ^= (b & 0xff);
+      hash *= 0x100000001b3L;
+    }
+    return hash != 0 ? hash : 1;
+  }
+
+}
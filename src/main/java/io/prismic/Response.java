@@ -3,9 +3,13 @@ package io.prismic;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+/**
+ * A page of search results. Responses are immutable, so that caches can share them between callers.
+ */
 public class Response {
 
   private final List<Document> results;
@@ -17,7 +21,7 @@ public class Response {
   private final String prev_page;
 
   public Response(List<Document> results, int page, int results_per_page, int total_results_size, int total_pages, String next_page, String prev_page){
-    this.results = results;
+    this.results = results != null ? Collections.unmodifiableList(results) : Collections.emptyList();
     this.page = page;
     this.results_per_page = results_per_page;
     this.total_results_size = total_results_size;
@@ -49,11 +53,15 @@ public class Response {
   }
 
   static Response parse(JsonNode json) {
+    return parse(json, false);
+  }
+
+  static Response parse(JsonNode json, boolean lazy) {
     Iterator<JsonNode> resultsJson;
     resultsJson = json.path("results").elements();
     List<Document> results = new ArrayList<>();
     while (resultsJson.hasNext()) {
-      results.add(Document.parse(resultsJson.next()));
+      results.add(Document.parse(resultsJson.next(), lazy));
     }
     return new Response(results,
       Integer.parseInt(json.path("page").asText()),
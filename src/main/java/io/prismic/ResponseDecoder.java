@@ -0,0 +1,339 @@
+package io.prismic;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decodes search results straight from a token stream, into the same {@link Response} and {@link Document} objects
+ * as {@link Response#parse(JsonNode)}, without building a tree of the whole response.
+ *
+ * Only the value of one fragment at a time is read as a tree, and handed over to the fragment parsers:
+ * it is garbage as soon as the fragment is built, so the response is never held twice in memory.
+ */
+class ResponseDecoder {
+
+  private ResponseDecoder() {}
+
+  static Response decode(JsonParser parser) throws IOException {
+    return decode(parser, false);
+  }
+
+  /**
+   * @param parser positioned on the start of the response object
+   * @param lazy true to keep the value of each fragment as a tree until it is read, see {@link Document#parse(JsonNode, boolean)}
+   */
+  static Response decode(JsonParser parser, boolean lazy) throws IOException {
+    expect(parser, JsonToken.START_OBJECT);
+    List<Document> results = new ArrayList<>();
+    String page = "";
+    String resultsPerPage = "";
+    String totalResultsSize = "";
+    String totalPages = "";
+    String nextPage = "";
+    String prevPage = "";
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "results":
+          if (parser.currentToken() == JsonToken.START_ARRAY) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+              results.add(document(parser, lazy));
+            }
+          } else {
+            parser.skipChildren();
+          }
+          break;
+        case "page":
+          page = text(parser);
+          break;
+        case "results_per_page":
+          resultsPerPage = text(parser);
+          break;
+        case "total_results_size":
+          totalResultsSize = text(parser);
+          break;
+        case "total_pages":
+          totalPages = text(parser);
+          break;
+        case "next_page":
+          nextPage = text(parser);
+          break;
+        case "prev_page":
+          prevPage = text(parser);
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return new Response(results,
+      Integer.parseInt(page),
+      Integer.parseInt(resultsPerPage),
+      Integer.parseInt(totalResultsSize),
+      Integer.parseInt(totalPages),
+      nextPage.equals("null") ? null : nextPage,
+      prevPage.equals("null") ? null : prevPage
+    );
+  }
+
+  /**
+   * @param parser positioned on the start of the document object
+   */
+  static Document document(JsonParser parser, boolean lazy) throws IOException {
+    String id = "";
+    String uid = null;
+    String href = "";
+    String type = "";
+    String lang = "";
+    String firstPublicationDate = "";
+    String lastPublicationDate = "";
+    List<AlternateLanguage> alternateLanguages = new ArrayList<>();
+    Set<String> tags = new HashSet<>();
+    List<String> slugs = new ArrayList<>();
+    // Fragments of each object in "data", which may come before "type" tells which one is the document's
+    Map<String, Map<String, Fragment>> data = Collections.emptyMap();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "id":
+          id = text(parser);
+          break;
+        case "uid":
+          uid = text(parser);
+          break;
+        case "href":
+          href = text(parser);
+          break;
+        case "type":
+          type = text(parser);
+          break;
+        case "lang":
+          lang = text(parser);
+          break;
+        case "first_publication_date":
+          firstPublicationDate = text(parser);
+          break;
+        case "last_publication_date":
+          lastPublicationDate = text(parser);
+          break;
+        case "alternate_languages":
+          if (parser.currentToken() == JsonToken.START_ARRAY) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+              alternateLanguages.add(alternateLanguage(parser));
+            }
+          } else {
+            parser.skipChildren();
+          }
+          break;
+        case "tags":
+          if (parser.currentToken() == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+              tags.add(text(parser));
+            }
+          } else {
+            parser.skipChildren();
+          }
+          break;
+        case "slugs":
+          if (parser.currentToken() == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+              slugs.add(urlDecode(text(parser)));
+            }
+          } else {
+            parser.skipChildren();
+          }
+          break;
+        case "data":
+          if (parser.currentToken() == JsonToken.START_OBJECT) {
+            data = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+              String dataType = parser.getCurrentName();
+              parser.nextToken();
+              data.put(dataType, lazy ? lazyFragments(parser, dataType) : fragments(parser, dataType));
+            }
+          } else {
+            parser.skipChildren();
+          }
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    Map<String, Fragment> fragments = data.get(type);
+    if (fragments == null) {
+      fragments = new LinkedHashMap<>();
+    }
+    return new Document(id, uid, type, href, tags, slugs, lang, alternateLanguages,
+      dateTime(firstPublicationDate), dateTime(lastPublicationDate), fragments);
+  }
+
+  /**
+   * Same naming as {@link Document#parseFragments(JsonNode, String)}.
+   */
+  private static Map<String, Fragment> fragments(JsonParser parser, String type) throws IOException {
+    Map<String, Fragment> fragments = new LinkedHashMap<>();
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return fragments;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.START_ARRAY) {
+        int i = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          fragments.put(type + "." + field + "[" + i + "]", fragment(parser));
+          i++;
+        }
+      } else {
+        fragments.put(type + "." + field, fragment(parser));
+      }
+    }
+    return fragments;
+  }
+
+  private static Map<String, Fragment> lazyFragments(JsonParser parser, String type) throws IOException {
+    LazyFragments fragments = new LazyFragments();
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return fragments;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.START_ARRAY) {
+        int i = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          JsonNode fragment = parser.readValueAsTree();
+          fragments.add(type + "." + field + "[" + i + "]", fragment.path("type").asText(), fragment.path("value"));
+          i++;
+        }
+      } else {
+        JsonNode fragment = parser.readValueAsTree();
+        fragments.add(type + "." + field, fragment.path("type").asText(), fragment.path("value"));
+      }
+    }
+    return fragments;
+  }
+
+  /**
+   * @param parser positioned on a <code>{"type": ..., "value": ...}</code> object
+   */
+  private static Fragment fragment(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return Document.parseFragment("", MissingNode.getInstance());
+    }
+    String type = null;
+    JsonNode value = MissingNode.getInstance();
+    Fragment fragment = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("type".equals(field)) {
+        type = text(parser);
+      } else if ("value".equals(field)) {
+        if (type != null && ("Text".equals(type) || "Select".equals(type)) && token.isScalarValue()) {
+          fragment = new Fragment.Text(text(parser));
+        } else if (token == JsonToken.VALUE_NULL) {
+          value = NullNode.getInstance();
+        } else {
+          // Small: only this fragment's value
+          value = parser.readValueAsTree();
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    if (fragment != null) {
+      return fragment;
+    }
+    return Document.parseFragment(type != null ? type : "", value);
+  }
+
+  private static AlternateLanguage alternateLanguage(JsonParser parser) throws IOException {
+    String id = "";
+    String uid = null;
+    String type = "";
+    String lang = "";
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "id":
+          id = text(parser);
+          break;
+        case "uid":
+          uid = text(parser);
+          break;
+        case "type":
+          type = text(parser);
+          break;
+        case "lang":
+          lang = text(parser);
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return new AlternateLanguage(id, uid, type, lang);
+  }
+
+  /**
+   * The current value as {@link JsonNode#asText()} would render it: "null" for null, "" for objects and arrays.
+   */
+  private static String text(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NULL) {
+      return "null";
+    }
+    if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return "";
+    }
+    if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+      // Rendered as a double, like DoubleNode does
+      return String.valueOf(parser.getDoubleValue());
+    }
+    return parser.getText();
+  }
+
+  private static ZonedDateTime dateTime(String text) {
+    return "null".equals(text) ? null : ZonedDateTime.parse(text, Document.PUBLICATION_DATE_FORMATTER);
+  }
+
+  private static String urlDecode(String slug) {
+    try {
+      return URLDecoder.decode(slug, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      // Never happens, UTF-8 is supported everywhere!
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void expect(JsonParser parser, JsonToken token) throws IOException {
+    if (parser.currentToken() == null) {
+      parser.nextToken();
+    }
+    if (parser.currentToken() != token) {
+      throw new IOException("Expected " + token + " but got " + parser.currentToken());
+    }
+  }
+
+}
@@ -0,0 +1,264 @@
+package io.prismic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the heap retained by cached values: JSON trees, and the Response, Document and Fragment objects parsed from them.
+ *
+ * The figures assume a 64-bit JVM with compressed references, and strings stored as UTF-16.
+ * They are meant to bound the cache in bytes within a reasonable margin, not to be exact:
+ * shared instances are counted every time they are referenced.
+ */
+class SizeEstimator {
+
+  private static final long OBJECT = 16;
+  private static final long REFERENCE = 4;
+  private static final long LIST = 40;
+  private static final long MAP = 56;
+  private static final long MAP_ENTRY = 40;
+
+  private SizeEstimator() {}
+
+  /**
+   * @return the estimated size of a cache entry, including its key and the bookkeeping around it
+   */
+  static long entry(String key, Object value) {
+    return string(key) + MAP_ENTRY + 24 + OBJECT + 32 + estimate(value);
+  }
+
+  static long estimate(Object value) {
+    if (value instanceof JsonNode) {
+      return json((JsonNode) value);
+    }
+    if (value instanceof Response) {
+      return response((Response) value);
+    }
+    if (value instanceof Document) {
+      return document((Document) value);
+    }
+    if (value instanceof Fragment) {
+      return fragment((Fragment) value);
+    }
+    return OBJECT;
+  }
+
+  static long json(JsonNode json) {
+    if (json == null) {
+      return 0;
+    }
+    switch (json.getNodeType()) {
+      case OBJECT:
+        long size = OBJECT + MAP;
+        Iterator<Map.Entry<String, JsonNode>> fields = json.fields();
+        while (fields.hasNext()) {
+          Map.Entry<String, JsonNode> field = fields.next();
+          size += MAP_ENTRY + string(field.getKey()) + json(field.getValue());
+        }
+        return size;
+      case ARRAY:
+        size = OBJECT + LIST + REFERENCE * json.size();
+        for (JsonNode element : json) {
+          size += json(element);
+        }
+        return size;
+      case STRING:
+        return OBJECT + string(json.textValue());
+      case BINARY:
+        return OBJECT + 16 + json.size();
+      case BOOLEAN:
+      case NULL:
+      case MISSING:
+        // Singletons
+        return 0;
+      default:
+        return json.isBigDecimal() || json.isBigInteger() ? 64 : 24;
+    }
+  }
+
+  static long response(Response response) {
+    long size = OBJECT + 32 + string(response.getNextPage()) + string(response.getPrevPage());
+    size += LIST + REFERENCE * response.getResults().size();
+    for (Document document : response.getResults()) {
+      size += document(document);
+    }
+    return size;
+  }
+
+  static long document(Document document) {
+    long size = OBJECT + 48
+      + string(document.getId()) + string(document.getUid()) + string(document.getType())
+      + string(document.getHref()) + string(document.getLang())
+      + strings(document.getTags()) + strings(document.getSlugs());
+    size += LIST + document.getAlternateLanguages().size() * (OBJECT + 16 + 80);
+    return size + fragments(document.getFragments());
+  }
+
+  static long fragments(Map<String, Fragment> fragments) {
+    if (fragments instanceof LazyFragments) {
+      return lazyFragments((LazyFragments) fragments);
+    }
+    long size = MAP;
+    for (Map.Entry<String, Fragment> entry : fragments.entrySet()) {
+      size += MAP_ENTRY + string(entry.getKey()) + fragment(entry.getValue());
+    }
+    return size;
+  }
+
+  /**
+   * Estimated without decoding anything: the JSON of the fragments not read yet, plus the ones already decoded.
+   */
+  private static long lazyFragments(LazyFragments fragments) {
+    long size = MAP;
+    for (String key : fragments.keySet()) {
+      size += MAP_ENTRY + OBJECT + string(key);
+    }
+    for (JsonNode value : fragments.pending()) {
+      size += json(value);
+    }
+    for (Fragment fragment : fragments.decodedFragments()) {
+      size += fragment(fragment);
+    }
+    return size;
+  }
+
+  static long fragment(Fragment fragment) {
+    if (fragment == null) {
+      return 0;
+    }
+    if (fragment instanceof Fragment.Text) {
+      return OBJECT + string(((Fragment.Text) fragment).getValue());
+    }
+    if (fragment instanceof Fragment.StructuredText) {
+      List<Fragment.StructuredText.Block> blocks = ((Fragment.StructuredText) fragment).getBlocks();
+      long size = OBJECT + LIST + REFERENCE * blocks.size();
+      for (Fragment.StructuredText.Block block : blocks) {
+        size += block(block);
+      }
+      return size;
+    }
+    if (fragment instanceof Fragment.Image) {
+      Fragment.Image image = (Fragment.Image) fragment;
+      long size = OBJECT + 8 + view(image.getView("main")) + MAP;
+      for (Map.Entry<String, Fragment.Image.View> view : image.getViews().entrySet()) {
+        size += MAP_ENTRY + string(view.getKey()) + view(view.getValue());
+      }
+      return size;
+    }
+    if (fragment instanceof Fragment.DocumentLink) {
+      Fragment.DocumentLink link = (Fragment.DocumentLink) fragment;
+      return OBJECT + 32 + string(link.getId()) + string(link.getUid()) + string(link.getType())
+        + string(link.getSlug()) + string(link.getLang()) + strings(link.getTags())
+        + fragments(link.getFragments());
+    }
+    if (fragment instanceof Fragment.WebLink) {
+      return OBJECT + 16 + string(((Fragment.WebLink) fragment).getUrl());
+    }
+    if (fragment instanceof Fragment.FileLink) {
+      Fragment.FileLink link = (Fragment.FileLink) fragment;
+      return OBJECT + 40 + string(link.getUrl()) + string(link.getFilename()) + string(link.getKind());
+    }
+    if (fragment instanceof Fragment.ImageLink) {
+      return OBJECT + 8 + string(((Fragment.ImageLink) fragment).getUrl());
+    }
+    if (fragment instanceof Fragment.Embed) {
+      return embed((Fragment.Embed) fragment);
+    }
+    if (fragment instanceof Fragment.Group) {
+      List<GroupDoc> docs = ((Fragment.Group) fragment).getDocs();
+      long size = OBJECT + LIST + REFERENCE * docs.size();
+      for (GroupDoc doc : docs) {
+        size += OBJECT + fragments(doc.getFragments());
+      }
+      return size;
+    }
+    if (fragment instanceof Fragment.SliceZone) {
+      List<Fragment.Slice> slices = ((Fragment.SliceZone) fragment).getSlices();
+      long size = OBJECT + LIST + REFERENCE * slices.size();
+      for (Fragment.Slice slice : slices) {
+        size += OBJECT + 16 + string(slice.getSliceType()) + string(slice.getLabel());
+        if (slice instanceof Fragment.CompositeSlice) {
+          Fragment.CompositeSlice composite = (Fragment.CompositeSlice) slice;
+          size += fragment(composite.getRepeat());
+          if (composite.getNonRepeat() != null) {
+            size += OBJECT + fragments(composite.getNonRepeat().getFragments());
+          }
+        } else {
+          size += fragment(simpleSliceValue(slice));
+        }
+      }
+      return size;
+    }
+    if (fragment instanceof Fragment.Raw) {
+      return OBJECT + json(((Fragment.Raw) fragment).getValue());
+    }
+    // Numbers, dates, colors, geopoints...
+    return OBJECT + 32;
+  }
+
+  // Simple slices are deprecated, but still found in old documents
+  @SuppressWarnings("deprecation")
+  private static Fragment simpleSliceValue(Fragment.Slice slice) {
+    return slice instanceof Fragment.SimpleSlice ? ((Fragment.SimpleSlice) slice).getValue() : null;
+  }
+
+  private static long block(Fragment.StructuredText.Block block) {
+    if (block instanceof Fragment.StructuredText.Block.Text) {
+      Fragment.StructuredText.Block.Text text = (Fragment.StructuredText.Block.Text) block;
+      long size = OBJECT + 16 + string(text.getText()) + string(text.getLabel());
+      List<Fragment.StructuredText.Span> spans = text.getSpans();
+      size += LIST + REFERENCE * spans.size();
+      for (Fragment.StructuredText.Span span : spans) {
+        size += OBJECT + 8;
+        if (span instanceof Fragment.StructuredText.Span.Hyperlink) {
+          size += fragment(((Fragment.StructuredText.Span.Hyperlink) span).getLink());
+        } else if (span instanceof Fragment.StructuredText.Span.Label) {
+          size += string(((Fragment.StructuredText.Span.Label) span).getLabel());
+        }
+      }
+      return size;
+    }
+    if (block instanceof Fragment.StructuredText.Block.Image) {
+      Fragment.StructuredText.Block.Image image = (Fragment.StructuredText.Block.Image) block;
+      return OBJECT + 8 + view(image.getView()) + string(image.getLabel());
+    }
+    if (block instanceof Fragment.StructuredText.Block.Embed) {
+      Fragment.StructuredText.Block.Embed embed = (Fragment.StructuredText.Block.Embed) block;
+      return OBJECT + 8 + embed(embed.getObj()) + string(embed.getLabel());
+    }
+    return OBJECT;
+  }
+
+  private static long view(Fragment.Image.View view) {
+    if (view == null) {
+      return 0;
+    }
+    // The link it may hold is counted as a small constant
+    return OBJECT + 24 + string(view.getUrl()) + string(view.getAlt()) + string(view.getCopyright()) + 32;
+  }
+
+  private static long embed(Fragment.Embed embed) {
+    if (embed == null) {
+      return 0;
+    }
+    return OBJECT + 40 + string(embed.getType()) + string(embed.getProvider()) + string(embed.getUrl())
+      + string(embed.getHtml()) + json(embed.getOEmbedJson());
+  }
+
+  private static long strings(Collection<String> strings) {
+    long size = LIST + REFERENCE * strings.size();
+    for (String string : strings) {
+      size += string(string);
+    }
+    return size;
+  }
+
+  private static long string(String string) {
+    return string == null ? 0 : 40 + 2L * string.length();
+  }
+
+}
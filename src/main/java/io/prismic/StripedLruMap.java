@@ -0,0 +1,206 @@
+package io.prismic;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongBiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A bounded, thread-safe map evicting its least recently used entries.
+ *
+ * Keys are spread over independent segments, each one being an access-ordered LinkedHashMap
+ * guarded by its own lock, so that threads working on different keys rarely contend.
+ * The eviction order is exact within a segment, and therefore approximately LRU for the whole map.
+ *
+ * The capacity is either a number of entries, or a total weight when a weigher is given: each segment then
+ * evicts until it fits its share of the capacity. An entry heavier than that share is not kept at all,
+ * and evicts nothing but the previous value of its key.
+ */
+class StripedLruMap<K, V> {
+
+  // The smallest number of entries per segment, when the capacity is a number of entries
+  static final int MIN_SEGMENT_CAPACITY = 64;
+  private static final int MAX_SEGMENTS = 64;
+
+  private final Segment<K, V>[] segments;
+  private final int mask;
+  private final ToLongBiFunction<K, V> weigher;
+  private final BiConsumer<K, V> onEviction;
+
+  StripedLruMap(int capacity) {
+    this(capacity, (key, value) -> {});
+  }
+
+  /**
+   * @param onEviction called with the least recently used entries as they are evicted, while their segment is locked
+   */
+  StripedLruMap(int capacity, BiConsumer<K, V> onEviction) {
+    this(capacity, MIN_SEGMENT_CAPACITY, (key, value) -> 1L, onEviction);
+  }
+
+  /**
+   * @param capacity the maximum total weight
+   * @param minSegmentCapacity the smallest share of the capacity a segment may get, in the unit of the weigher:
+   *                           the capacity is split over fewer segments rather than into smaller shares
+   * @param weigher the weight of an entry, computed once when it is stored
+   * @param onEviction called with the least recently used entries as they are evicted, while their segment is locked
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  StripedLruMap(long capacity, long minSegmentCapacity, ToLongBiFunction<K, V> weigher, BiConsumer<K, V> onEviction) {
+    if (capacity < 1 || minSegmentCapacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    long wanted = Math.min(Runtime.getRuntime().availableProcessors() * 2, capacity / minSegmentCapacity);
+    int count = Integer.highestOneBit((int) Math.max(1, Math.min(wanted, MAX_SEGMENTS)));
+    this.segments = new Segment[count];
+    this.mask = count - 1;
+    this.weigher = weigher;
+    this.onEviction = onEviction;
+    for (int i = 0; i < count; i++) {
+      // Spread the remainder so that the segments add up to exactly the requested capacity
+      segments[i] = new Segment<>(capacity / count + (i < capacity % count ? 1 : 0));
+    }
+  }
+
+  V get(K key) {
+    Segment<K, V> segment = segmentFor(key);
+    segment.lock.lock();
+    try {
+      Weighted<V> weighted = segment.map.get(key);
+      return weighted != null ? weighted.value : null;
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  void put(K key, V value) {
+    Segment<K, V> segment = segmentFor(key);
+    segment.lock.lock();
+    try {
+      segment.put(key, new Weighted<>(value, weigher.applyAsLong(key, value)), onEviction);
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  /**
+   * Atomically replace the value mapped to a key, if any, with the result of a function of it.
+   */
+  void replace(K key, UnaryOperator<V> function) {
+    Segment<K, V> segment = segmentFor(key);
+    segment.lock.lock();
+    try {
+      Weighted<V> weighted = segment.map.get(key);
+      if (weighted != null) {
+        V value = function.apply(weighted.value);
+        if (value != weighted.value) {
+          segment.put(key, new Weighted<>(value, weigher.applyAsLong(key, value)), onEviction);
+        }
+      }
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  V remove(K key) {
+    Segment<K, V> segment = segmentFor(key);
+    segment.lock.lock();
+    try {
+      Weighted<V> weighted = segment.map.remove(key);
+      if (weighted == null) {
+        return null;
+      }
+      segment.weight -= weighted.weight;
+      return weighted.value;
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  int size() {
+    int size = 0;
+    for (Segment<K, V> segment : segments) {
+      segment.lock.lock();
+      try {
+        size += segment.map.size();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * @return the total weight of the entries, which is their number if there is no weigher
+   */
+  long weight() {
+    long weight = 0;
+    for (Segment<K, V> segment : segments) {
+      segment.lock.lock();
+      try {
+        weight += segment.weight;
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return weight;
+  }
+
+  private Segment<K, V> segmentFor(K key) {
+    int h = key.hashCode();
+    h ^= (h >>> 16);
+    return segments[h & mask];
+  }
+
+  // --
+
+  private static class Weighted<V> {
+    final V value;
+    final long weight;
+
+    Weighted(V value, long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  private static class Segment<K, V> {
+    final ReentrantLock lock = new ReentrantLock();
+    final LinkedHashMap<K, Weighted<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+    final long capacity;
+    long weight;
+
+    Segment(long capacity) {
+      this.capacity = capacity;
+    }
+
+    void put(K key, Weighted<V> weighted, BiConsumer<K, V> onEviction) {
+      if (weighted.weight > capacity) {
+        // It could never fit: rather than evicting the whole segment, drop it, with the previous value of the key
+        Weighted<V> previous = map.remove(key);
+        if (previous != null) {
+          weight -= previous.weight;
+        }
+        onEviction.accept(key, weighted.value);
+        return;
+      }
+      Weighted<V> previous = map.put(key, weighted);
+      weight += weighted.weight - (previous != null ? previous.weight : 0);
+      evict(onEviction);
+    }
+
+    private void evict(BiConsumer<K, V> onEviction) {
+      Iterator<Map.Entry<K, Weighted<V>>> eldest = map.entrySet().iterator();
+      while (weight > capacity && eldest.hasNext()) {
+        Map.Entry<K, Weighted<V>> entry = eldest.next();
+        eldest.remove();
+        weight -= entry.getValue().weight;
+        onEviction.accept(entry.getKey(), entry.getValue().value);
+      }
+    }
+  }
+
+}
@@ -1,50 +1,82 @@
 package io.prismic;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public abstract class WithFragments {
 
+  private volatile Map<String, List<String>> index;
+
   public abstract Map<String, Fragment> getFragments();
 
+  /**
+   * @return the links to other documents, including those in groups, slices and structured text hyperlinks
+   */
   public List<Fragment.DocumentLink> getLinkedDocuments() {
     List<Fragment.DocumentLink> result = new ArrayList<>();
     for (Fragment fragment: getFragments().values()) {
-      if (fragment instanceof Fragment.DocumentLink) {
-        result.add((Fragment.DocumentLink)fragment);
+      addLinkedDocuments(fragment, result);
+    }
+    return result;
+  }
+
+  private static void addLinkedDocuments(Fragment fragment, List<Fragment.DocumentLink> result) {
+    if (fragment instanceof Fragment.DocumentLink) {
+      result.add((Fragment.DocumentLink)fragment);
+    }
+    if (fragment instanceof Fragment.Group) {
+      for (GroupDoc doc: ((Fragment.Group) fragment).getDocs()) {
+        result.addAll(doc.getLinkedDocuments());
       }
-      if (fragment instanceof Fragment.Group) {
-        for (GroupDoc doc: ((Fragment.Group) fragment).getDocs()) {
-          result.addAll(doc.getLinkedDocuments());
+    }
+    if (fragment instanceof Fragment.SliceZone) {
+      for (Fragment.Slice slice: ((Fragment.SliceZone) fragment).getSlices()) {
+        if (slice instanceof Fragment.CompositeSlice) {
+          Fragment.CompositeSlice composite = (Fragment.CompositeSlice)slice;
+          if (composite.getNonRepeat() != null) {
+            result.addAll(composite.getNonRepeat().getLinkedDocuments());
+          }
+          addLinkedDocuments(composite.getRepeat(), result);
+        } else {
+          addLinkedDocuments(simpleSliceValue(slice), result);
         }
       }
-      if (fragment instanceof Fragment.StructuredText) {
-        Fragment.StructuredText text = (Fragment.StructuredText)fragment;
-        for (Fragment.StructuredText.Block block: text.getBlocks()) {
-          if (block instanceof Fragment.StructuredText.Block.Text) {
-            Fragment.StructuredText.Block.Text textBlock = (Fragment.StructuredText.Block.Text)block;
-            for (Fragment.StructuredText.Span span: textBlock.getSpans()) {
-              if (span instanceof Fragment.StructuredText.Span.Hyperlink) {
-                Fragment.StructuredText.Span.Hyperlink hlink = (Fragment.StructuredText.Span.Hyperlink)span;
-                if (hlink.getLink() instanceof Fragment.DocumentLink) {
-                  result.add((Fragment.DocumentLink)hlink.getLink());
-                }
+    }
+    if (fragment instanceof Fragment.StructuredText) {
+      Fragment.StructuredText text = (Fragment.StructuredText)fragment;
+      for (Fragment.StructuredText.Block block: text.getBlocks()) {
+        if (block instanceof Fragment.StructuredText.Block.Text) {
+          Fragment.StructuredText.Block.Text textBlock = (Fragment.StructuredText.Block.Text)block;
+          for (Fragment.StructuredText.Span span: textBlock.getSpans()) {
+            if (span instanceof Fragment.StructuredText.Span.Hyperlink) {
+              Fragment.StructuredText.Span.Hyperlink hlink = (Fragment.StructuredText.Span.Hyperlink)span;
+              if (hlink.getLink() instanceof Fragment.DocumentLink) {
+                result.add((Fragment.DocumentLink)hlink.getLink());
               }
             }
           }
         }
       }
     }
-    return result;
+  }
+
+  // Simple slices are deprecated, but still found in old documents
+  @SuppressWarnings("deprecation")
+  private static Fragment simpleSliceValue(Fragment.Slice slice) {
+    return slice instanceof Fragment.SimpleSlice ? ((Fragment.SimpleSlice) slice).getValue() : null;
   }
 
   public Fragment get(String field) {
-    Fragment single = getFragments().get(field);
+    Map<String, Fragment> fragments = getFragments();
+    Fragment single = fragments.get(field);
     if(single == null) {
-      List<Fragment> multi = getAll(field);
-      if(multi.size() > 0) {
-        single = multi.get(0);
+      List<String> multi = index().get(field);
+      if(multi != null) {
+        single = fragments.get(multi.get(0));
       }
     }
     return single;
@@ -52,14 +84,61 @@ public abstract class WithFragments {
 
   public List<Fragment> getAll(String field) {
     List<Fragment> result = new ArrayList<>();
-    for(Map.Entry<String,Fragment> entry: getFragments().entrySet()) {
-      if(entry.getKey().matches("\\Q" + field + "\\E\\[\\d+\\]")) {
-        result.add(entry.getValue());
+    List<String> names = index().get(field);
+    if(names != null) {
+      Map<String, Fragment> fragments = getFragments();
+      for(String name: names) {
+        result.add(fragments.get(name));
       }
     }
     return result;
   }
 
+  /**
+   * Index the multi-valued fragments, named like <code>field[0]</code>, by field name.
+   * To be called by subclasses once their fragments are set, if they never change afterwards.
+   */
+  protected final void indexFragments() {
+    this.index = index(getFragments().keySet());
+  }
+
+  private Map<String, List<String>> index() {
+    Map<String, List<String>> built = index;
+    return built != null ? built : index(getFragments().keySet());
+  }
+
+  /**
+   * @return the names ending with <code>[n]</code>, in order, by the name before the brackets
+   */
+  static Map<String, List<String>> index(Collection<String> names) {
+    Map<String, List<String>> index = new HashMap<>();
+    for(String name: names) {
+      String field = multiValuedField(name);
+      if(field != null) {
+        index.computeIfAbsent(field, f -> new ArrayList<>(1)).add(name);
+      }
+    }
+    return index;
+  }
+
+  private static String multiValuedField(String name) {
+    int last = name.length() - 1;
+    if(last < 0 || name.charAt(last) != ']') {
+      return null;
+    }
+    int bracket = name.lastIndexOf('[', last);
+    if(bracket < 0 || bracket == last - 1) {
+      return null;
+    }
+    for(int i = bracket + 1; i < last; i++) {
+      char c = name.charAt(i);
+      if(c < '0' || c > '9') {
+        return null;
+      }
+    }
+    return name.substring(0, bracket);
+  }
+
   public Fragment.Image getImage(String field) {
     Fragment fragment = get(field);
     if(fragment != null && fragment instanceof Fragment.Image) {
@@ -153,6 +232,42 @@ public abstract class WithFragments {
     return WithFragments.fragmentHtml(fragment, linkResolver, htmlSerializer);
   }
 
+  /**
+   * Same as {@link #getHtml(String, LinkResolver, HtmlSerializer)}, rendered only once per version of the document.
+   *
+   * @param ref the ref this document was queried with, such as the master ref or a preview ref; not cached if null
+   * @param htmlCache keeps the rendered HTML, see {@link HtmlCache}; not used if null
+   */
+  public String getHtml(String field, String ref, LinkResolver linkResolver, HtmlSerializer htmlSerializer, HtmlCache htmlCache) {
+    String version = renderVersion();
+    if (htmlCache == null || ref == null || version == null) {
+      return getHtml(field, linkResolver, htmlSerializer);
+    }
+    return htmlCache.getOrRender(ref, version, field, linkResolver, htmlSerializer, () -> getHtml(field, linkResolver, htmlSerializer));
+  }
+
+  /**
+   * @return what identifies this object and its content within a ref for the {@link HtmlCache}, or null if it cannot be cached
+   */
+  protected String renderVersion() {
+    return null;
+  }
+
+  /**
+   * Write the HTML of a fragment to <code>out</code>, such as a servlet response's Writer, rather than building a String.
+   */
+  public static void fragmentHtml(Appendable out, Fragment fragment, LinkResolver linkResolver, HtmlSerializer htmlSerializer) throws IOException {
+    if(fragment instanceof Fragment.StructuredText) {
+      ((Fragment.StructuredText)fragment).asHtml(out, linkResolver, htmlSerializer);
+    }
+    else if(fragment instanceof Fragment.Group) {
+      ((Fragment.Group)fragment).asHtml(out, linkResolver);
+    }
+    else {
+      out.append(fragmentHtml(fragment, linkResolver, htmlSerializer));
+    }
+  }
+
   public static String fragmentHtml(Fragment fragment, LinkResolver linkResolver, HtmlSerializer htmlSerializer) {
     if (fragment == null) return "";
 
@@ -286,13 +401,41 @@ public abstract class WithFragments {
   }
 
   public String asHtml(LinkResolver linkResolver, HtmlSerializer htmlSerializer) {
-    StringBuilder html = new StringBuilder();
-    for(Map.Entry<String,Fragment> fragment: getFragments().entrySet()) {
-      html.append("<section data-field=\"").append(fragment.getKey()).append("\">");
-      html.append(getHtml(fragment.getKey(), linkResolver, htmlSerializer));
-      html.append("</section>\n");
+    return HtmlOutput.render(out -> asHtml(out, linkResolver, htmlSerializer));
+  }
+
+  /**
+   * Same as {@link #asHtml(LinkResolver, HtmlSerializer)}, rendered only once per version of the document.
+   *
+   * @param ref the ref this document was queried with, such as the master ref or a preview ref; not cached if null
+   * @param htmlCache keeps the rendered HTML, see {@link HtmlCache}; not used if null
+   */
+  public String asHtml(String ref, LinkResolver linkResolver, HtmlSerializer htmlSerializer, HtmlCache htmlCache) {
+    String version = renderVersion();
+    if (htmlCache == null || ref == null || version == null) {
+      return asHtml(linkResolver, htmlSerializer);
+    }
+    return htmlCache.getOrRender(ref, version, null, linkResolver, htmlSerializer, () -> asHtml(linkResolver, htmlSerializer));
+  }
+
+  public void asHtml(Appendable out, LinkResolver linkResolver) throws IOException {
+    asHtml(out, linkResolver, null);
+  }
+
+  /**
+   * Write the HTML of all the fragments to <code>out</code>, such as a servlet response's Writer, rather than building a String.
+   */
+  public void asHtml(Appendable out, LinkResolver linkResolver, HtmlSerializer htmlSerializer) throws IOException {
+    boolean first = true;
+    for(String field: getFragments().keySet()) {
+      if(!first) {
+        out.append('\n');
+      }
+      first = false;
+      out.append("<section data-field=\"").append(field).append("\">");
+      fragmentHtml(out, get(field), linkResolver, htmlSerializer);
+      out.append("</section>");
     }
-    return html.toString().trim();
   }
 
 
@@ -0,0 +1,102 @@
+package io.prismic.core;
+
+/**
+ * The caching directives of a <code>Cache-Control</code> response header that the kit understands:
+ * <code>max-age</code>, <code>stale-while-revalidate</code>, <code>stale-if-error</code>,
+ * <code>no-store</code> and <code>no-cache</code>. Durations are converted to milliseconds.
+ */
+public class CacheControl {
+
+  private final Long maxAge;
+  private final Long staleWhileRevalidate;
+  private final Long staleIfError;
+  private final boolean noStore;
+
+  public CacheControl(Long maxAge, Long staleWhileRevalidate, Long staleIfError, boolean noStore) {
+    this.maxAge = maxAge;
+    this.staleWhileRevalidate = staleWhileRevalidate;
+    this.staleIfError = staleIfError;
+    this.noStore = noStore;
+  }
+
+  /**
+   * @return the time to live in milliseconds, or null if absent
+   */
+  public Long getMaxAge() {
+    return maxAge;
+  }
+
+  /**
+   * @return how long in milliseconds an expired response may be served while it is refreshed, or null if absent
+   */
+  public Long getStaleWhileRevalidate() {
+    return staleWhileRevalidate;
+  }
+
+  /**
+   * @return how long in milliseconds an expired response may be served if its refresh fails, or null if absent
+   */
+  public Long getStaleIfError() {
+    return staleIfError;
+  }
+
+  /**
+   * @return true if the response can be stored in the cache
+   */
+  public boolean isCacheable() {
+    return !noStore && maxAge != null;
+  }
+
+  // --
+
+  public static CacheControl parse(String header) {
+    Long maxAge = null;
+    Long staleWhileRevalidate = null;
+    Long staleIfError = null;
+    boolean noStore = false;
+    if (header != null) {
+      for (String directive : header.split(",")) {
+        String name = directive.trim().toLowerCase();
+        String value = null;
+        int eq = name.indexOf('=');
+        if (eq > 0) {
+          value = name.substring(eq + 1).trim();
+          name = name.substring(0, eq).trim();
+        }
+        switch (name) {
+          case "max-age":
+            maxAge = seconds(value);
+            break;
+          case "stale-while-revalidate":
+            staleWhileRevalidate = seconds(value);
+            break;
+          case "stale-if-error":
+            staleIfError = seconds(value);
+            break;
+          case "no-store":
+          case "no-cache":
+            noStore = true;
+            break;
+          default:
+            break;
+        }
+      }
+    }
+    return new CacheControl(maxAge, staleWhileRevalidate, staleIfError, noStore);
+  }
+
+  private static Long seconds(String value) {
+    if (value == null) {
+      return null;
+    }
+    if (value.startsWith("\"") && value.endsWith("\"") && value.length() > 1) {
+      value = value.substring(1, value.length() - 1);
+    }
+    try {
+      return Long.parseLong(value) * 1000;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,274 @@
+package io.prismic.core;
+
+import io.prismic.Api;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link HttpTransport} that stops calling a host that keeps failing, so that threads fail fast
+ * instead of piling up waiting for it.
+ *
+ * Each host has its own circuit. The outcome of its last <code>windowSize</code> requests is recorded: a request fails
+ * if it throws, is answered with a 5xx status, or takes longer than <code>slowCallThreshold</code> to be answered.
+ * Once the window is full, if the share of failures reaches <code>failureRateThreshold</code>, the circuit opens:
+ * for <code>openDuration</code>, requests are not sent and throw an {@link Api.Error} with code
+ * {@link Api.Error.Code#CIRCUIT_OPEN}. After that, a single trial request is let through: the circuit closes
+ * if it succeeds, and opens again otherwise.
+ *
+ * While the circuit is open, {@link io.prismic.Cache.BuiltInCache} serves the last response it has for the URL,
+ * even once its stale-if-error window is over, rather than failing with {@link Api.Error.Code#CIRCUIT_OPEN}.
+ *
+ * Example: <code>Api.get(endpoint, null, null, cache, logger, null, new CircuitBreakerTransport(HttpTransport.DefaultTransport.getInstance()))</code>
+ *
+ * To combine it with a {@link RetryingTransport}, wrap the circuit breaker in the retrying transport,
+ * so that every attempt is recorded and requests are not retried while the circuit is open.
+ */
+public class CircuitBreakerTransport implements HttpTransport {
+
+  public static final int DEFAULT_WINDOW_SIZE = 20;
+  public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+  public static final long DEFAULT_SLOW_CALL_THRESHOLD = 5000;
+  public static final long DEFAULT_OPEN_DURATION = 30000;
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final HttpTransport transport;
+  private final int windowSize;
+  private final double failureRateThreshold;
+  private final long slowCallThreshold;
+  private final long openDuration;
+
+  private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder slowCalls = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder trips = new LongAdder();
+
+  public CircuitBreakerTransport(HttpTransport transport) {
+    this(transport, DEFAULT_WINDOW_SIZE, DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_SLOW_CALL_THRESHOLD, DEFAULT_OPEN_DURATION);
+  }
+
+  /**
+   * @param transport the transport sending the requests, will default to {@link HttpTransport.DefaultTransport} if null
+   * @param windowSize the number of recent requests the failure rate is computed on
+   * @param failureRateThreshold the share of failed requests opening the circuit, between 0 and 1
+   * @param slowCallThreshold the time in milliseconds after which an answer counts as a failure
+   * @param openDuration how long in milliseconds the circuit stays open before trying the host again
+   */
+  public CircuitBreakerTransport(HttpTransport transport, int windowSize, double failureRateThreshold, long slowCallThreshold, long openDuration) {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("windowSize must be positive");
+    }
+    if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+      throw new IllegalArgumentException("failureRateThreshold must be between 0 and 1");
+    }
+    this.transport = transport != null ? transport : DefaultTransport.getInstance();
+    this.windowSize = windowSize;
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallThreshold = slowCallThreshold;
+    this.openDuration = openDuration;
+  }
+
+  @Override
+  public Response get(String url, Map<String, String> headers, Proxy proxy) throws IOException {
+    String host = PooledHttpTransport.hostKey(new URL(url));
+    Circuit circuit = circuits.computeIfAbsent(host, k -> new Circuit());
+    if (!circuit.tryAcquire()) {
+      rejected.increment();
+      throw new Api.Error(Api.Error.Code.CIRCUIT_OPEN, "Circuit open for " + host);
+    }
+    calls.increment();
+    long start = System.nanoTime();
+    Response response = null;
+    boolean success = false;
+    try {
+      response = transport.get(url, headers, proxy);
+      boolean failed = response.getStatus() >= 500;
+      boolean slow = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) > slowCallThreshold;
+      if (failed) {
+        failures.increment();
+      } else if (slow) {
+        slowCalls.increment();
+      }
+      success = !failed && !slow;
+      return response;
+    } finally {
+      // Whatever was thrown, so that a trial request always settles the circuit
+      if (response == null) {
+        failures.increment();
+      }
+      circuit.record(success);
+    }
+  }
+
+  /**
+   * @param url any URL of the host
+   * @return the state of the host's circuit
+   */
+  public State getState(String url) throws IOException {
+    Circuit circuit = circuits.get(PooledHttpTransport.hostKey(new URL(url)));
+    return circuit != null ? circuit.state() : State.CLOSED;
+  }
+
+  /**
+   * @return a snapshot of the circuit breaker metrics, for all the hosts
+   */
+  public Stats getStats() {
+    return new Stats(calls.sum(), failures.sum(), slowCalls.sum(), rejected.sum(), trips.sum());
+  }
+
+  // --
+
+  /**
+   * Point in time metrics of a {@link CircuitBreakerTransport}
+   */
+  public static class Stats {
+    private final long calls;
+    private final long failures;
+    private final long slowCalls;
+    private final long rejected;
+    private final long trips;
+
+    public Stats(long calls, long failures, long slowCalls, long rejected, long trips) {
+      this.calls = calls;
+      this.failures = failures;
+      this.slowCalls = slowCalls;
+      this.rejected = rejected;
+      this.trips = trips;
+    }
+
+    /**
+     * @return the number of requests sent
+     */
+    public long getCalls() {
+      return calls;
+    }
+
+    /**
+     * @return the number of requests that threw or were answered with a 5xx status
+     */
+    public long getFailures() {
+      return failures;
+    }
+
+    /**
+     * @return the number of successful requests that took longer than the slow call threshold
+     */
+    public long getSlowCalls() {
+      return slowCalls;
+    }
+
+    /**
+     * @return the number of requests not sent because the circuit was open
+     */
+    public long getRejected() {
+      return rejected;
+    }
+
+    /**
+     * @return the number of times a circuit opened
+     */
+    public long getTrips() {
+      return trips;
+    }
+
+    public String toString() {
+      return "calls=" + calls + " failures=" + failures + " slowCalls=" + slowCalls + " rejected=" + rejected
+        + " trips=" + trips;
+    }
+  }
+
+  // --
+
+  /**
+   * The state of a host, and the outcome of its last requests
+   */
+  private class Circuit {
+    private final boolean[] failed = new boolean[windowSize];
+    private int next = 0;
+    private int recorded = 0;
+    private int failedCount = 0;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight = false;
+
+    synchronized boolean tryAcquire() {
+      if (state == State.OPEN) {
+        if (System.currentTimeMillis() - openedAt < openDuration) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+      }
+      if (state == State.HALF_OPEN) {
+        if (trialInFlight) {
+          return false;
+        }
+        trialInFlight = true;
+      }
+      return true;
+    }
+
+    synchronized void record(boolean success) {
+      if (state == State.HALF_OPEN) {
+        trialInFlight = false;
+        if (success) {
+          close();
+        } else {
+          open();
+        }
+        return;
+      }
+      if (state == State.OPEN) {
+        // A request sent before the circuit opened
+        return;
+      }
+      if (recorded == windowSize) {
+        if (failed[next]) {
+          failedCount--;
+        }
+      } else {
+        recorded++;
+      }
+      failed[next] = !success;
+      if (!success) {
+        failedCount++;
+      }
+      next = (next + 1) % windowSize;
+      if (recorded == windowSize && failedCount >= failureRateThreshold * windowSize) {
+        open();
+      }
+    }
+
+    synchronized State state() {
+      return state;
+    }
+
+    private void open() {
+      state = State.OPEN;
+      openedAt = System.currentTimeMillis();
+      trips.increment();
+    }
+
+    private void close() {
+      state = State.CLOSED;
+      next = 0;
+      recorded = 0;
+      failedCount = 0;
+      Arrays.fill(failed, false);
+    }
+  }
+
+}
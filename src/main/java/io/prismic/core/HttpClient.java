@@ -1,7 +1,7 @@
 package io.prismic.core;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.prismic.Api;
 import io.prismic.Cache;
 import io.prismic.Logger;
@@ -10,77 +10,124 @@ import org.apache.commons.io.IOUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class HttpClient {
 
   public static JsonNode fetch(String url, Logger logger, Cache cache, Proxy proxy) {
-    logger = (logger != null) ? logger : new Logger.NoLogger();
-    cache = (cache != null) ? cache : new Cache.NoCache();
-    try {
-      JsonNode cachedResult = cache.get(url);
-      if (cachedResult != null) {
-        return cachedResult;
+    return fetch(url, logger, cache, proxy, null);
+  }
+
+  public static JsonNode fetch(final String url, Logger logger, Cache cache, final Proxy proxy, HttpTransport transport) {
+    final Logger log = (logger != null) ? logger : new Logger.NoLogger();
+    final Cache store = (cache != null) ? cache : new Cache.NoCache();
+    final HttpTransport http = (transport != null) ? transport : HttpTransport.DefaultTransport.getInstance();
+    return store.getOrLoad(url, () -> load(url, log, store, proxy, http));
+  }
+
+  /**
+   * Fetch a URL and return its parsed form, letting the cache keep the parsed object rather than the JSON.
+   */
+  public static <T> T fetch(final String url, Logger logger, Cache cache, final Proxy proxy, HttpTransport transport, Class<T> type, Function<JsonNode, T> parser) {
+    return fetch(url, logger, cache, proxy, transport, type, parser, null);
+  }
+
+  /**
+   * Fetch a URL and return its parsed form. If the cache stores parsed values, the response is decoded
+   * straight from the HTTP stream by the decoder, without building a JSON tree; otherwise it is parsed from JSON.
+   */
+  public static <T> T fetch(final String url, Logger logger, Cache cache, final Proxy proxy, HttpTransport transport, Class<T> type, Function<JsonNode, T> parser, final Decoder<T> decoder) {
+    final Logger log = (logger != null) ? logger : new Logger.NoLogger();
+    final Cache store = (cache != null) ? cache : new Cache.NoCache();
+    final HttpTransport http = (transport != null) ? transport : HttpTransport.DefaultTransport.getInstance();
+    if (decoder != null && store.storesParsed()) {
+      return store.getOrLoadParsed(url, type, () -> request(url, log, proxy, http, (body, cacheControl) -> {
+        T value;
+        try (JsonParser jsonParser = Json.createParser(body)) {
+          jsonParser.nextToken();
+          value = decoder.decode(jsonParser);
+        }
+        if (cacheControl.isCacheable()) {
+          store.setParsed(url, cacheControl.getMaxAge(), cacheControl.getStaleWhileRevalidate(), cacheControl.getStaleIfError(), value);
+        }
+        return value;
+      }));
+    }
+    return store.getOrLoadParsed(url, type, () -> load(url, log, store, proxy, http), parser);
+  }
+
+  /**
+   * Builds a value from a JSON token stream, positioned on its first token.
+   */
+  public interface Decoder<T> {
+    T decode(JsonParser parser) throws IOException;
+  }
+
+  private interface BodyReader<T> {
+    T read(InputStream body, CacheControl cacheControl) throws IOException;
+  }
+
+  private static JsonNode load(final String url, Logger logger, final Cache cache, Proxy proxy, HttpTransport transport) {
+    return request(url, logger, proxy, transport, (body, cacheControl) -> {
+      JsonNode value = Json.readTree(body);
+      if (cacheControl.isCacheable()) {
+        cache.set(url, cacheControl.getMaxAge(), cacheControl.getStaleWhileRevalidate(), cacheControl.getStaleIfError(), value);
       }
+      return value;
+    });
+  }
+
+  private static <T> T request(String url, Logger logger, Proxy proxy, HttpTransport transport, BodyReader<T> reader) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("Accept", "application/json");
+    headers.put("User-Agent", "Prismic-java-kit/" + Api.getVersion() + " JVM/" + System.getProperty("java.version"));
 
-      URLConnection connection;
-      if (proxy != null) {
-        connection = new URL(url).openConnection(proxy);
-      } else {
-        connection = new URL(url).openConnection();
+    logger.log("DEBUG", "Making request: " + url);
+    try (HttpTransport.Response response = transport.get(url, headers, proxy)) {
+      int status = response.getStatus();
+      if (status == 200) {
+        return reader.read(response.getBody(), CacheControl.parse(response.getHeader("Cache-Control")));
       }
-      HttpURLConnection httpConnection = (HttpURLConnection) connection;
-      InputStream response = null;
-
-      connection.setRequestProperty("Accept", "application/json");
-      connection.setRequestProperty("User-Agent", "Prismic-java-kit/" + Api.getVersion() + " JVM/" + System.getProperty("java.version"));
-
-      try {
-        logger.log("DEBUG", "Making request: " + url);
-        logger.log("DEBUG", "Result" + connection.getContent());
-        response = connection.getInputStream();
-        if (httpConnection.getResponseCode() == 200) {
-          JsonNode value = new ObjectMapper().readTree(response);
-          String cacheHeader = httpConnection.getHeaderField("Cache-Control");
-          if (cacheHeader != null && cacheHeader.matches("max-age=\\d+")) {
-            Long expiration = Long.parseLong(cacheHeader.substring(8)) * 1000;
-            cache.set(url, expiration, value);
+      String body = IOUtils.toString(response.getBody(), UTF_8);
+      switch (status) {
+        case 401:
+          String errorText = errorText(body);
+          if ("Invalid access token".equals(errorText)) {
+            throw new Api.Error(Api.Error.Code.INVALID_TOKEN, errorText);
+          } else {
+            throw new Api.Error(Api.Error.Code.AUTHORIZATION_NEEDED, errorText);
           }
-          return value;
-        } else {
-          String body = (response != null) ? IOUtils.toString(response, UTF_8) : "";
-          throw new Api.Error(Api.Error.Code.UNEXPECTED, httpConnection.getResponseCode() + " (" + body + ")");
-        }
-      } catch (MalformedURLException e) {
-        throw new Api.Error(Api.Error.Code.MALFORMED_URL, e);
-      } catch (IOException e) {
-        String body;
-        String errorText = "Unknown error";
-        JsonNode errorJson = new ObjectMapper().readTree(httpConnection.getErrorStream());
-        if (errorJson != null) {
-          errorText = errorJson.get("error").asText();
-        }
-        switch (httpConnection.getResponseCode()) {
-          case 401:
-            if ("Invalid access token".equals(errorText)) {
-              throw new Api.Error(Api.Error.Code.INVALID_TOKEN, errorText);
-            } else {
-              throw new Api.Error(Api.Error.Code.AUTHORIZATION_NEEDED, errorText);
-            }
-          case 429:
-            body = (response != null) ? IOUtils.toString(response, UTF_8) : "";
-            throw new Api.Error(Api.Error.Code.TOO_MANY_REQUESTS, "[429] " + body);
-          default:
-            body = (response != null) ? IOUtils.toString(response, UTF_8) : "";
-            throw new Api.Error(Api.Error.Code.UNEXPECTED, "HTTP error " + httpConnection.getResponseCode() + " (" + body + ")");
-        }
+        case 429:
+          throw new Api.Error(Api.Error.Code.TOO_MANY_REQUESTS, "[429] " + body);
+        default:
+          if (status < 400) {
+            throw new Api.Error(Api.Error.Code.UNEXPECTED, status + " (" + body + ")");
+          }
+          throw new Api.Error(Api.Error.Code.UNEXPECTED, "HTTP error " + status + " (" + body + ")");
       }
+    } catch (MalformedURLException e) {
+      throw new Api.Error(Api.Error.Code.MALFORMED_URL, e);
     } catch (IOException e) {
       throw new Api.Error(Api.Error.Code.UNEXPECTED, e);
     }
   }
 
+  private static String errorText(String body) {
+    try {
+      JsonNode errorJson = Json.readTree(body);
+      if (errorJson != null && errorJson.has("error")) {
+        return errorJson.get("error").asText();
+      }
+    } catch (IOException e) {
+      // Not a JSON error payload
+    }
+    return "Unknown error";
+  }
+
   public static String encodeURIComponent(String str) {
     try {
       return URLEncoder.encode(str, "utf-8");
@@ -0,0 +1,94 @@
+package io.prismic.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The HTTP layer used by {@link HttpClient} to talk to the prismic.io API.
+ *
+ * Implementations must be thread-safe: a single transport is meant to be shared by all the
+ * {@link io.prismic.Api} objects of the JVM, so that they reuse the same connections.
+ * The kit uses {@link PooledHttpTransport} unless told otherwise.
+ */
+public interface HttpTransport {
+
+  /**
+   * Perform a GET request.
+   *
+   * @param url the URL to fetch
+   * @param headers the request headers
+   * @param proxy an optional java.net.Proxy instance, may be null
+   * @return the response, which must be closed by the caller to release the underlying connection
+   * @throws IOException if the request could not be performed
+   */
+  Response get(String url, Map<String, String> headers, Proxy proxy) throws IOException;
+
+  // --
+
+  /**
+   * A response received by a {@link HttpTransport}. Closing it releases the connection.
+   */
+  class Response implements Closeable {
+
+    private final int status;
+    private final Map<String, List<String>> headers;
+    private final InputStream body;
+
+    public Response(int status, Map<String, List<String>> headers, InputStream body) {
+      this.status = status;
+      this.headers = headers != null ? headers : Collections.<String, List<String>>emptyMap();
+      this.body = body != null ? body : new ByteArrayInputStream(new byte[0]);
+    }
+
+    public int getStatus() {
+      return status;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+      return headers;
+    }
+
+    /**
+     * @param name the header name, case insensitive
+     * @return the first value of the header, or null if absent
+     */
+    public String getHeader(String name) {
+      for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+        if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+          return header.getValue().get(0);
+        }
+      }
+      return null;
+    }
+
+    public InputStream getBody() {
+      return body;
+    }
+
+    @Override
+    public void close() throws IOException {
+      body.close();
+    }
+
+  }
+
+  // --
+
+  class DefaultTransport {
+
+    private static final HttpTransport defaultTransport = new PooledHttpTransport();
+
+    private DefaultTransport() {}
+
+    public static HttpTransport getInstance() {
+      return defaultTransport;
+    }
+  }
+
+}
@@ -0,0 +1,70 @@
+package io.prismic.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The JSON reader shared by the whole kit.
+ *
+ * Jackson's readers and factories are thread-safe, and keep caches (such as the canonicalized field names)
+ * that only pay off when they are reused: building an ObjectMapper for every response throws them away.
+ * An application that already has a configured ObjectMapper can have the kit use it with
+ * <code>Json.setReader(mapper.reader())</code>.
+ */
+public class Json {
+
+  private static volatile ObjectReader reader = defaultReader();
+
+  private Json() {}
+
+  public static ObjectReader getReader() {
+    return reader;
+  }
+
+  /**
+   * @param reader the reader to use for all the JSON read from now on, or null to go back to the default one
+   */
+  public static void setReader(ObjectReader reader) {
+    Json.reader = reader != null ? reader : defaultReader();
+  }
+
+  public static JsonNode readTree(InputStream in) throws IOException {
+    return reader.readTree(in);
+  }
+
+  public static JsonNode readTree(String content) throws IOException {
+    return reader.readTree(content);
+  }
+
+  /**
+   * @return a parser able to read values as trees, which must be closed
+   */
+  public static JsonParser createParser(InputStream in) throws IOException {
+    ObjectReader current = reader;
+    JsonParser parser = current.getFactory().createParser(in);
+    parser.setCodec(current);
+    return parser;
+  }
+
+  public static JsonParser createParser(byte[] data, int offset, int length) throws IOException {
+    ObjectReader current = reader;
+    JsonParser parser = current.getFactory().createParser(data, offset, length);
+    parser.setCodec(current);
+    return parser;
+  }
+
+  static ObjectReader defaultReader() {
+    // Field names are mostly the same few ones, in every document
+    JsonFactory factory = new JsonFactory()
+      .enable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES)
+      .enable(JsonFactory.Feature.INTERN_FIELD_NAMES);
+    return new ObjectMapper(factory).reader();
+  }
+
+}
@@ -0,0 +1,294 @@
+package io.prismic.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default {@link HttpTransport}, built on <code>HttpURLConnection</code>.
+ *
+ * The number of connections in use is bounded, both in total and per host. A request waits
+ * up to the connect timeout for a free connection, and fails if none becomes available.
+ * Response bodies are always drained before being closed, so that the JDK keeps the sockets
+ * alive and reuses them for the next request to the same host instead of doing a new TCP and
+ * TLS handshake. The number of idle sockets kept alive per host is governed by the
+ * <code>http.maxConnections</code> system property (5 by default), which you may want to align
+ * on <code>maxPerHost</code>.
+ *
+ * Share one instance between all your {@link io.prismic.Api} objects.
+ */
+public class PooledHttpTransport implements HttpTransport {
+
+  public static final int DEFAULT_MAX_TOTAL = 64;
+  public static final int DEFAULT_MAX_PER_HOST = 16;
+  public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+  public static final int DEFAULT_READ_TIMEOUT = 30000;
+
+  private final int maxTotal;
+  private final int maxPerHost;
+  private final int connectTimeout;
+  private final int readTimeout;
+
+  private final Semaphore totalPermits;
+  private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+  private final AtomicInteger pending = new AtomicInteger();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder poolTimeouts = new LongAdder();
+
+  public PooledHttpTransport() {
+    this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_HOST, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+  }
+
+  /**
+   * @param maxTotal the maximum number of connections in use at the same time
+   * @param maxPerHost the maximum number of connections in use at the same time for a given host
+   * @param connectTimeout timeout in milliseconds to get a connection, 0 for no timeout
+   * @param readTimeout timeout in milliseconds to read the response, 0 for no timeout
+   */
+  public PooledHttpTransport(int maxTotal, int maxPerHost, int connectTimeout, int readTimeout) {
+    if (maxTotal < 1 || maxPerHost < 1) {
+      throw new IllegalArgumentException("Pool sizes must be positive");
+    }
+    this.maxTotal = maxTotal;
+    this.maxPerHost = Math.min(maxPerHost, maxTotal);
+    this.connectTimeout = connectTimeout;
+    this.readTimeout = readTimeout;
+    this.totalPermits = new Semaphore(maxTotal, true);
+  }
+
+  @Override
+  public Response get(String url, Map<String, String> headers, Proxy proxy) throws IOException {
+    URL target = new URL(url);
+    Semaphore hostPermit = hostPermits.computeIfAbsent(hostKey(target), k -> new Semaphore(maxPerHost, true));
+    requests.increment();
+    lease(hostPermit);
+    Releaser releaser = new Releaser(hostPermit);
+    try {
+      URLConnection connection = (proxy != null) ? target.openConnection(proxy) : target.openConnection();
+      HttpURLConnection httpConnection = (HttpURLConnection) connection;
+      connection.setConnectTimeout(connectTimeout);
+      connection.setReadTimeout(readTimeout);
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        connection.setRequestProperty(header.getKey(), header.getValue());
+      }
+      int status = httpConnection.getResponseCode();
+      InputStream body = (status >= 400) ? httpConnection.getErrorStream() : httpConnection.getInputStream();
+      if (body == null) {
+        body = new ByteArrayInputStream(new byte[0]);
+      }
+      return new Response(status, httpConnection.getHeaderFields(), new ReleasingInputStream(body, releaser));
+    } catch (IOException | RuntimeException e) {
+      failures.increment();
+      releaser.run();
+      throw e;
+    }
+  }
+
+  private void lease(Semaphore hostPermit) throws IOException {
+    pending.incrementAndGet();
+    try {
+      if (connectTimeout <= 0) {
+        hostPermit.acquire();
+        try {
+          totalPermits.acquire();
+        } catch (InterruptedException e) {
+          hostPermit.release();
+          throw e;
+        }
+        return;
+      }
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeout);
+      if (!hostPermit.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)) {
+        poolTimeouts.increment();
+        throw new IOException("Timeout waiting for a connection to become available");
+      }
+      boolean leased = false;
+      try {
+        leased = totalPermits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      } finally {
+        if (!leased) {
+          hostPermit.release();
+        }
+      }
+      if (!leased) {
+        poolTimeouts.increment();
+        throw new IOException("Timeout waiting for a connection to become available");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a connection", e);
+    } finally {
+      pending.decrementAndGet();
+    }
+  }
+
+  /**
+   * @return the scheme, host and port of the URL, which identify its connection pool
+   */
+  static String hostKey(URL url) {
+    int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+    return url.getProtocol() + "://" + url.getHost() + ":" + port;
+  }
+
+  /**
+   * @return a snapshot of the pool metrics
+   */
+  public Stats getStats() {
+    return new Stats(
+      maxTotal,
+      maxPerHost,
+      maxTotal - totalPermits.availablePermits(),
+      pending.get(),
+      requests.sum(),
+      failures.sum(),
+      poolTimeouts.sum()
+    );
+  }
+
+  public int getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public int getReadTimeout() {
+    return readTimeout;
+  }
+
+  // --
+
+  /**
+   * Point in time metrics of a {@link PooledHttpTransport}
+   */
+  public static class Stats {
+    private final int maxTotal;
+    private final int maxPerHost;
+    private final int leased;
+    private final int pending;
+    private final long requests;
+    private final long failures;
+    private final long poolTimeouts;
+
+    public Stats(int maxTotal, int maxPerHost, int leased, int pending, long requests, long failures, long poolTimeouts) {
+      this.maxTotal = maxTotal;
+      this.maxPerHost = maxPerHost;
+      this.leased = leased;
+      this.pending = pending;
+      this.requests = requests;
+      this.failures = failures;
+      this.poolTimeouts = poolTimeouts;
+    }
+
+    public int getMaxTotal() {
+      return maxTotal;
+    }
+
+    public int getMaxPerHost() {
+      return maxPerHost;
+    }
+
+    /**
+     * @return the number of connections currently in use
+     */
+    public int getLeased() {
+      return leased;
+    }
+
+    /**
+     * @return the number of requests waiting for a connection
+     */
+    public int getPending() {
+      return pending;
+    }
+
+    public int getAvailable() {
+      return maxTotal - leased;
+    }
+
+    public long getRequests() {
+      return requests;
+    }
+
+    /**
+     * @return the number of requests that failed at the network level
+     */
+    public long getFailures() {
+      return failures;
+    }
+
+    /**
+     * @return the number of requests that gave up waiting for a connection
+     */
+    public long getPoolTimeouts() {
+      return poolTimeouts;
+    }
+
+    public String toString() {
+      return "leased=" + leased + "/" + maxTotal + " pending=" + pending + " requests=" + requests
+        + " failures=" + failures + " poolTimeouts=" + poolTimeouts;
+    }
+  }
+
+  // --
+
+  private class Releaser implements Runnable {
+    private final Semaphore hostPermit;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    Releaser(Semaphore hostPermit) {
+      this.hostPermit = hostPermit;
+    }
+
+    @Override
+    public void run() {
+      if (released.compareAndSet(false, true)) {
+        totalPermits.release();
+        hostPermit.release();
+      }
+    }
+  }
+
+  /**
+   * Drains the body on close so that the JDK can put the socket back in its keep-alive cache,
+   * then gives the connection back to the pool.
+   */
+  private static class ReleasingInputStream extends FilterInputStream {
+    private final Runnable releaser;
+    private boolean closed = false;
+
+    ReleasingInputStream(InputStream in, Runnable releaser) {
+      super(in);
+      this.releaser = releaser;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer) != -1) {
+          // drain
+        }
+        in.close();
+      } finally {
+        releaser.run();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,120 @@
+package io.prismic.core;
+
+import io.prismic.Api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link HttpTransport} shaping the requests sent to each host with a {@link RateLimiter}, so that they are spread
+ * over time instead of being answered 429 Too Many Requests by the repository.
+ *
+ * A request waits for a token up to <code>maxWait</code> milliseconds; when it can't get one in time it is not sent,
+ * and throws an {@link Api.Error} with code {@link Api.Error.Code#TOO_MANY_REQUESTS}, as if the repository had refused it.
+ * With a <code>maxWait</code> of 0, requests never wait.
+ *
+ * Share the transport, or at least the limiter, between all the {@link Api} objects of the JVM.
+ *
+ * Example: <code>new RateLimitedTransport(HttpTransport.DefaultTransport.getInstance(), new RateLimiter.InMemory(50, 100), 2000)</code>
+ */
+public class RateLimitedTransport implements HttpTransport {
+
+  private final HttpTransport transport;
+  private final RateLimiter limiter;
+  private final long maxWait;
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder delayed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * @param transport the transport sending the requests, will default to {@link HttpTransport.DefaultTransport} if null
+   * @param limiter the buckets, keyed by scheme, host and port, must not be null
+   * @param maxWait the time in milliseconds a request may wait for a token, 0 to fail fast
+   */
+  public RateLimitedTransport(HttpTransport transport, RateLimiter limiter, long maxWait) {
+    if (maxWait < 0) {
+      throw new IllegalArgumentException("maxWait must not be negative");
+    }
+    this.transport = transport != null ? transport : DefaultTransport.getInstance();
+    this.limiter = Objects.requireNonNull(limiter, "limiter");
+    this.maxWait = maxWait;
+  }
+
+  @Override
+  public Response get(String url, Map<String, String> headers, Proxy proxy) throws IOException {
+    String host = PooledHttpTransport.hostKey(new URL(url));
+    requests.increment();
+    long deadline = System.currentTimeMillis() + maxWait;
+    boolean waited = false;
+    for (long wait = limiter.tryAcquire(host); wait > 0; wait = limiter.tryAcquire(host)) {
+      if (System.currentTimeMillis() + wait > deadline) {
+        rejected.increment();
+        throw new Api.Error(Api.Error.Code.TOO_MANY_REQUESTS, "Client rate limit reached for " + host);
+      }
+      if (!waited) {
+        waited = true;
+        delayed.increment();
+      }
+      try {
+        Thread.sleep(wait);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+      }
+    }
+    return transport.get(url, headers, proxy);
+  }
+
+  /**
+   * @return a snapshot of the rate limiting metrics
+   */
+  public Stats getStats() {
+    return new Stats(requests.sum(), delayed.sum(), rejected.sum());
+  }
+
+  // --
+
+  /**
+   * Point in time metrics of a {@link RateLimitedTransport}
+   */
+  public static class Stats {
+    private final long requests;
+    private final long delayed;
+    private final long rejected;
+
+    public Stats(long requests, long delayed, long rejected) {
+      this.requests = requests;
+      this.delayed = delayed;
+      this.rejected = rejected;
+    }
+
+    public long getRequests() {
+      return requests;
+    }
+
+    /**
+     * @return the number of requests that waited for a token
+     */
+    public long getDelayed() {
+      return delayed;
+    }
+
+    /**
+     * @return the number of requests not sent for lack of a token
+     */
+    public long getRejected() {
+      return rejected;
+    }
+
+    public String toString() {
+      return "requests=" + requests + " delayed=" + delayed + " rejected=" + rejected;
+    }
+  }
+
+}
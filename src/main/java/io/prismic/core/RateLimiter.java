@@ -0,0 +1,115 @@
+package io.prismic.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets shared by everything sending requests to the same hosts, see {@link RateLimitedTransport}.
+ *
+ * Each key, typically a host, gets a bucket of <code>burst</code> tokens, refilled at <code>permitsPerSecond</code>.
+ * Implementations decide where the buckets live: {@link InMemory} shares them within the JVM, {@link FileBacked}
+ * between the processes of a machine. Implement this interface to keep them elsewhere, in a database for instance.
+ */
+public interface RateLimiter {
+
+  /**
+   * Take a token from the key's bucket if there is one. Must not block.
+   *
+   * @return 0 if a token was taken, or the time in milliseconds until one is available
+   * @throws IOException if the bucket could not be read or updated
+   */
+  long tryAcquire(String key) throws IOException;
+
+  // --
+
+  /**
+   * Buckets kept in memory, shared by the transports of the JVM using this limiter
+   */
+  class InMemory implements RateLimiter {
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param permitsPerSecond the sustained rate of requests per key
+     * @param burst the number of requests that may be sent at once after a quiet period
+     */
+    public InMemory(double permitsPerSecond, int burst) {
+      if (permitsPerSecond <= 0 || burst < 1) {
+        throw new IllegalArgumentException("The rate and the burst must be positive");
+      }
+      this.permitsPerSecond = permitsPerSecond;
+      this.burst = burst;
+    }
+
+    @Override
+    public long tryAcquire(String key) {
+      TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(burst, System.currentTimeMillis()));
+      synchronized (bucket) {
+        return bucket.take(System.currentTimeMillis(), permitsPerSecond, burst);
+      }
+    }
+  }
+
+  /**
+   * Buckets kept in files of a directory, one per key, shared by all the processes of the machine
+   * using the same directory and settings. The files are locked while a token is taken.
+   */
+  class FileBacked implements RateLimiter {
+
+    private final Path directory;
+    private final double permitsPerSecond;
+    private final int burst;
+    // A JVM can't hold two locks on the same file: threads take turns before locking it
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory where the bucket files are kept, created if needed
+     * @param permitsPerSecond the sustained rate of requests per key, for all the processes together
+     * @param burst the number of requests that may be sent at once after a quiet period
+     */
+    public FileBacked(Path directory, double permitsPerSecond, int burst) throws IOException {
+      if (permitsPerSecond <= 0 || burst < 1) {
+        throw new IllegalArgumentException("The rate and the burst must be positive");
+      }
+      this.directory = Files.createDirectories(directory);
+      this.permitsPerSecond = permitsPerSecond;
+      this.burst = burst;
+    }
+
+    // The file lock is held by the try-with-resources, never referenced
+    @SuppressWarnings("try")
+    @Override
+    public long tryAcquire(String key) throws IOException {
+      Path file = directory.resolve(key.replaceAll("[^A-Za-z0-9.-]", "_") + ".bucket");
+      synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+             FileLock lock = channel.lock()) {
+          long now = System.currentTimeMillis();
+          ByteBuffer state = ByteBuffer.allocate(16);
+          TokenBucket bucket;
+          if (channel.read(state, 0) == 16) {
+            state.flip();
+            bucket = new TokenBucket(state.getDouble(), state.getLong());
+          } else {
+            bucket = new TokenBucket(burst, now);
+          }
+          long wait = bucket.take(now, permitsPerSecond, burst);
+          state.clear();
+          state.putDouble(bucket.tokens).putLong(bucket.updatedAt).flip();
+          channel.write(state, 0);
+          return wait;
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,101 @@
+package io.prismic.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how long {@link RetryingTransport} waits before sending a request again.
+ *
+ * Requests answered 429 Too Many Requests, 500, 502, 503 or 504, or failing at the network level, are retried
+ * up to <code>maxAttempts</code> times in total, as long as the deadline of the call is not reached. The delay
+ * between two attempts doubles at each attempt, from <code>initialBackoff</code> up to <code>maxBackoff</code>,
+ * and is randomized between half and all of it so that clients failing together don't retry together.
+ * A <code>Retry-After</code> header sent by the server takes precedence over the computed delay.
+ */
+public class RetryPolicy {
+
+  public static final int DEFAULT_MAX_ATTEMPTS = 3;
+  public static final long DEFAULT_INITIAL_BACKOFF = 200;
+  public static final long DEFAULT_MAX_BACKOFF = 5000;
+  public static final long DEFAULT_DEADLINE = 15000;
+
+  private final int maxAttempts;
+  private final long initialBackoff;
+  private final long maxBackoff;
+  private final long deadline;
+
+  public RetryPolicy() {
+    this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, DEFAULT_DEADLINE);
+  }
+
+  /**
+   * @param maxAttempts the maximum number of requests per call, the first one included
+   * @param initialBackoff the delay in milliseconds before the first retry
+   * @param maxBackoff the maximum delay in milliseconds between two attempts, unless the server asks for more
+   * @param deadline the time in milliseconds after which a call is not retried anymore, 0 for no deadline
+   */
+  public RetryPolicy(int maxAttempts, long initialBackoff, long maxBackoff, long deadline) {
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("maxAttempts must be positive");
+    }
+    if (initialBackoff < 0 || maxBackoff < initialBackoff || deadline < 0) {
+      throw new IllegalArgumentException("Invalid backoff or deadline");
+    }
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.deadline = deadline;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public long getInitialBackoff() {
+    return initialBackoff;
+  }
+
+  public long getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  public long getDeadline() {
+    return deadline;
+  }
+
+  /**
+   * @return whether a response with this status is worth retrying
+   */
+  public boolean isRetryable(int status) {
+    switch (status) {
+      case 429:
+      case 500:
+      case 502:
+      case 503:
+      case 504:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @param attempt the number of the attempt that just failed, starting at 1
+   * @return the delay in milliseconds before the next attempt
+   */
+  public long backoff(int attempt) {
+    long backoff = initialBackoff;
+    for (int i = 1; i < attempt && backoff < maxBackoff; i++) {
+      backoff *= 2;
+    }
+    backoff = Math.min(backoff, maxBackoff);
+    long half = backoff / 2;
+    return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+  }
+
+  @Override
+  public String toString() {
+    return "RetryPolicy{maxAttempts=" + maxAttempts + ", initialBackoff=" + initialBackoff
+      + ", maxBackoff=" + maxBackoff + ", deadline=" + deadline + "}";
+  }
+
+}
@@ -0,0 +1,170 @@
+package io.prismic.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link HttpTransport} sending requests again through another transport when they fail with a transient error,
+ * as decided by a {@link RetryPolicy}.
+ *
+ * When the attempts are exhausted or the deadline is reached, the last response is returned as is,
+ * so that {@link HttpClient} reports the error as it would without retries, or the last network error is thrown.
+ *
+ * Example: <code>Api.get(endpoint, null, null, cache, logger, null, new RetryingTransport(HttpTransport.DefaultTransport.getInstance(), new RetryPolicy()))</code>
+ */
+public class RetryingTransport implements HttpTransport {
+
+  private final HttpTransport transport;
+  private final RetryPolicy policy;
+
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder recovered = new LongAdder();
+  private final LongAdder exhausted = new LongAdder();
+
+  public RetryingTransport(HttpTransport transport, RetryPolicy policy) {
+    this.transport = transport != null ? transport : DefaultTransport.getInstance();
+    this.policy = policy != null ? policy : new RetryPolicy();
+  }
+
+  @Override
+  public Response get(String url, Map<String, String> headers, Proxy proxy) throws IOException {
+    calls.increment();
+    long deadline = policy.getDeadline() > 0 ? System.currentTimeMillis() + policy.getDeadline() : Long.MAX_VALUE;
+    for (int attempt = 1; ; attempt++) {
+      Response response;
+      try {
+        response = transport.get(url, headers, proxy);
+      } catch (MalformedURLException e) {
+        throw e;
+      } catch (IOException e) {
+        long delay = policy.backoff(attempt);
+        if (!canRetry(attempt, delay, deadline)) {
+          exhausted.increment();
+          throw e;
+        }
+        pause(delay);
+        continue;
+      }
+      if (!policy.isRetryable(response.getStatus())) {
+        if (attempt > 1) {
+          recovered.increment();
+        }
+        return response;
+      }
+      long delay = retryAfter(response.getHeader("Retry-After"), System.currentTimeMillis());
+      if (delay < 0) {
+        delay = policy.backoff(attempt);
+      }
+      if (!canRetry(attempt, delay, deadline)) {
+        exhausted.increment();
+        return response;
+      }
+      response.close();
+      pause(delay);
+    }
+  }
+
+  private boolean canRetry(int attempt, long delay, long deadline) {
+    return attempt < policy.getMaxAttempts() && System.currentTimeMillis() + delay < deadline;
+  }
+
+  private void pause(long delay) throws IOException {
+    retries.increment();
+    try {
+      Thread.sleep(delay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to retry");
+    }
+  }
+
+  /**
+   * @param value a number of seconds or an HTTP date, may be null
+   * @return the delay in milliseconds, or -1 if the value is missing or invalid
+   */
+  static long retryAfter(String value, long now) {
+    if (value == null) {
+      return -1;
+    }
+    String trimmed = value.trim();
+    try {
+      return Math.max(0, Long.parseLong(trimmed) * 1000);
+    } catch (NumberFormatException e) {
+      // An HTTP date then
+    }
+    try {
+      long at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+      return Math.max(0, at - now);
+    } catch (DateTimeParseException e) {
+      return -1;
+    }
+  }
+
+  public RetryPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * @return a snapshot of the retry metrics
+   */
+  public Stats getStats() {
+    return new Stats(calls.sum(), retries.sum(), recovered.sum(), exhausted.sum());
+  }
+
+  // --
+
+  /**
+   * Point in time metrics of a {@link RetryingTransport}
+   */
+  public static class Stats {
+    private final long calls;
+    private final long retries;
+    private final long recovered;
+    private final long exhausted;
+
+    public Stats(long calls, long retries, long recovered, long exhausted) {
+      this.calls = calls;
+      this.retries = retries;
+      this.recovered = recovered;
+      this.exhausted = exhausted;
+    }
+
+    public long getCalls() {
+      return calls;
+    }
+
+    /**
+     * @return the number of requests sent again
+     */
+    public long getRetries() {
+      return retries;
+    }
+
+    /**
+     * @return the number of calls that succeeded after at least one retry
+     */
+    public long getRecovered() {
+      return recovered;
+    }
+
+    /**
+     * @return the number of calls still failing when the attempts or the deadline ran out
+     */
+    public long getExhausted() {
+      return exhausted;
+    }
+
+    public String toString() {
+      return "calls=" + calls + " retries=" + retries + " recovered=" + recovered + " exhausted=" + exhausted;
+    }
+  }
+
+}
@@ -0,0 +1,34 @@
+package io.prismic.core;
+
+/**
+ * The state of a token bucket, refilled continuously up to its capacity.
+ * Not thread-safe: the {@link RateLimiter} owning it guards it.
+ */
+class TokenBucket {
+
+  double tokens;
+  long updatedAt;
+
+  TokenBucket(double tokens, long updatedAt) {
+    this.tokens = tokens;
+    this.updatedAt = updatedAt;
+  }
+
+  /**
+   * Take a token if there is one.
+   *
+   * @return 0 if a token was taken, or the time in milliseconds until one is available
+   */
+  long take(long now, double permitsPerSecond, int burst) {
+    if (now > updatedAt) {
+      tokens = Math.min(burst, tokens + (now - updatedAt) * permitsPerSecond / 1000);
+      updatedAt = now;
+    }
+    if (tokens >= 1) {
+      tokens -= 1;
+      return 0;
+    }
+    return Math.max(1, (long) Math.ceil((1 - tokens) * 1000 / permitsPerSecond));
+  }
+
+}
@@ -1,6 +1,7 @@
 package io.prismic.servlet;
 
 import io.prismic.Api;
+import io.prismic.ApiRefresher;
 import io.prismic.Prismic;
 
 import javax.servlet.*;
@@ -8,27 +9,48 @@ import javax.servlet.annotation.WebFilter;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /*
  * WebFilter for JEE applications.
  *
  * Application not running in a servlet container (Play Framework, Android, etc.)
  * should ignore this class.
+ *
+ * The /api document is refreshed in the background every "refreshInterval" seconds (5 by default),
+ * so that requests only pick up the current Api object.
  */
 @WebFilter(filterName = "Prismic")
 public class PrismicFilter implements Filter {
 
+	private static final long DEFAULT_REFRESH_INTERVAL = 5;
+
 	private String endpoint;
 	private String accessToken;
+	private long refreshInterval;
+	private volatile ApiRefresher refresher;
 
 	@Override
 	public void init(FilterConfig filterConfig) {
     endpoint = filterConfig.getInitParameter("endpoint");
     accessToken = filterConfig.getInitParameter("accessToken");
+    String interval = filterConfig.getInitParameter("refreshInterval");
+    refreshInterval = interval != null ? Long.parseLong(interval) : DEFAULT_REFRESH_INTERVAL;
+    if (endpoint != null) {
+      try {
+        refresher = new ApiRefresher(endpoint, accessToken, TimeUnit.SECONDS.toMillis(refreshInterval));
+      } catch (Api.Error e) {
+        // The repository is not reachable yet: the first request will try again
+      }
+    }
 	}
 
 	@Override
 	public void destroy() {
+    ApiRefresher current = refresher;
+    if (current != null) {
+      current.close();
+    }
 	}
 
 	@Override
@@ -38,11 +60,25 @@ public class PrismicFilter implements Filter {
       throw new ServletException("Missing parameter in PrismicFilter: endpoint");
     }
 		String referenceFromCookies = getRefFromCookies(req.getCookies());
-    Api api = Api.get(endpoint, accessToken, referenceFromCookies);
+    Api api = getRefresher().get(referenceFromCookies);
 		request.setAttribute("prismicapi", api);
 		chain.doFilter(request, response);
 	}
 
+	private ApiRefresher getRefresher() {
+    ApiRefresher current = refresher;
+    if (current == null) {
+      synchronized (this) {
+        current = refresher;
+        if (current == null) {
+          current = new ApiRefresher(endpoint, accessToken, TimeUnit.SECONDS.toMillis(refreshInterval));
+          refresher = current;
+        }
+      }
+    }
+    return current;
+	}
+
 	private String getRefFromCookies(Cookie[] cookies) {
 		if(cookies == null) {
 			return null;
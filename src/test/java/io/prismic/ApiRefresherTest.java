@@ -0,0 +1,56 @@
+package io.prismic;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the background /api refresh, against a local repository stub.
+ */
+public class ApiRefresherTest {
+
+  private StubServer server;
+
+  @Before
+  public void init() throws Exception {
+    server = new StubServer(5);
+  }
+
+  @After
+  public void shutdown() {
+    server.stop();
+  }
+
+  @Test
+  public void readsDoNotFetch() throws Exception {
+    try (ApiRefresher refresher = new ApiRefresher(server.endpoint(), null, new Cache.BuiltInCache(10), null, null, null, 60000L)) {
+      Api api = refresher.get();
+      for (int i = 0; i < 10; i++) {
+        Assert.assertSame(api, refresher.get());
+      }
+      Assert.assertEquals(1, server.apiHits.get());
+      Assert.assertEquals("master-ref", api.getMaster().getRef());
+
+      Api preview = refresher.get("preview-ref");
+      Assert.assertNotSame(api, preview);
+      Assert.assertEquals(api.getRefs(), preview.getRefs());
+      Assert.assertEquals("doc-2", preview.getByID("doc-2").getId());
+      Assert.assertEquals(1, server.apiHits.get());
+    }
+  }
+
+  @Test
+  public void refreshesInTheBackground() throws Exception {
+    try (ApiRefresher refresher = new ApiRefresher(server.endpoint(), null, new Cache.BuiltInCache(10), null, null, null, 20L)) {
+      Api api = refresher.get();
+      long deadline = System.currentTimeMillis() + 5000;
+      while (server.apiHits.get() < 3 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertTrue(server.apiHits.get() >= 3);
+      Assert.assertSame("An unchanged /api document should not be parsed again", api, refresher.get());
+    }
+  }
+
+}
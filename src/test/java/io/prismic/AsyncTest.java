@@ -0,0 +1,150 @@
+package io.prismic;
+
+import io.prismic.core.PooledHttpTransport;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Tests of the non-blocking query API, against a local repository stub.
+ */
+public class AsyncTest {
+
+  private static StubServer server;
+  private static ExecutorService executor;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    server = new StubServer(30);
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterClass
+  public static void shutdown() {
+    executor.shutdown();
+    server.stop();
+  }
+
+  @Test
+  public void fanOutLookups() {
+    Api api = Api.getAsync(server.endpoint(), null, null, new Cache.NoCache(), null, null, new PooledHttpTransport(), executor).join();
+    CompletableFuture<Document> byId = api.getByIDAsync("doc-3", executor);
+    CompletableFuture<Document> byUid = api.getByUIDAsync("article", "doc-4", executor);
+    CompletableFuture<Document> bookmark = api.getBookmarkAsync("home", executor);
+    CompletableFuture<Document> missing = api.getByIDAsync("doc-99", executor);
+    CompletableFuture.allOf(byId, byUid, bookmark, missing).join();
+    Assert.assertEquals("doc-3", byId.join().getId());
+    Assert.assertEquals("doc-4", byUid.join().getId());
+    Assert.assertEquals("doc-1", bookmark.join().getId());
+    Assert.assertNull(missing.join());
+  }
+
+  @Test
+  public void submitCapturesTheQuery() {
+    Api api = Api.get(server.endpoint(), null, null, new Cache.NoCache(), new Logger.NoLogger(), null);
+    Form.SearchForm form = api.query().pageSize(5);
+    CompletableFuture<Response> first = form.submitAsync(executor);
+    form.page(2);
+    Assert.assertEquals(1, first.join().getPage());
+    Assert.assertEquals(5, first.join().getResults().size());
+  }
+
+  @Test
+  public void streamEveryPage() {
+    Api api = Api.get(server.endpoint(), null, null, new Cache.NoCache(), new Logger.NoLogger(), null);
+    int hits = server.searchHits.get();
+    List<String> ids = api.query().pageSize(7).stream().map(Document::getId).collect(Collectors.toList());
+    Assert.assertEquals(30, ids.size());
+    Assert.assertEquals("doc-1", ids.get(0));
+    Assert.assertEquals("doc-30", ids.get(29));
+    Assert.assertEquals(5, server.searchHits.get() - hits);
+
+    Assert.assertEquals(16, api.query().pageSize(7).page(3).stream().count());
+  }
+
+  @Test
+  public void prefetchTheNextPage() throws Exception {
+    Api api = Api.get(server.endpoint(), null, null, new Cache.NoCache(), new Logger.NoLogger(), null);
+    int hits = server.searchHits.get();
+    Iterator<Document> documents = api.query().pageSize(10).iterator(executor);
+    Assert.assertEquals("doc-1", documents.next().getId());
+    long deadline = System.currentTimeMillis() + 5000;
+    while (server.searchHits.get() - hits < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals("The second page is fetched while the first one is read", 2, server.searchHits.get() - hits);
+    int count = 1;
+    while (documents.hasNext()) {
+      Assert.assertEquals("doc-" + (++count), documents.next().getId());
+    }
+    Assert.assertEquals(30, count);
+    Assert.assertEquals(3, server.searchHits.get() - hits);
+  }
+
+  @Test
+  public void fetchAllPagesInOrder() {
+    Api api = Api.get(server.endpoint(), null, null, new Cache.NoCache(), new Logger.NoLogger(), null);
+    List<Integer> pages = new ArrayList<>();
+    List<String> ids = new ArrayList<>();
+    api.query().pageSize(4).fetchAllPages(executor, 3, true, page -> {
+      pages.add(page.getPage());
+      for (Document doc : page.getResults()) {
+        ids.add(doc.getId());
+      }
+    });
+    Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), pages);
+    Assert.assertEquals(30, ids.size());
+    Assert.assertEquals("doc-30", ids.get(29));
+  }
+
+  @Test
+  public void fetchAllPagesBacksOffOnTooManyRequests() {
+    Api api = Api.get(server.endpoint(), null, null, new Cache.NoCache(), new Logger.NoLogger(), null);
+    Set<Integer> pages = new HashSet<>();
+    int hits = server.searchHits.get();
+    server.tooManyRequests.set(2);
+    api.query().pageSize(10).fetchAllPages(executor, 2, false, page -> Assert.assertTrue(pages.add(page.getPage())));
+    Assert.assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), pages);
+    Assert.assertEquals(5, server.searchHits.get() - hits);
+  }
+
+  @Test
+  public void fetchAllPagesStopsRetryingOnFailure() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    Response first = new Response(new ArrayList<>(), 1, 1, 4, 4, "next", null);
+    BulkFetch fetch = new BulkFetch(page -> {
+      if (page == 1) {
+        return first;
+      }
+      if (page == 2) {
+        throw new Api.Error(Api.Error.Code.UNEXPECTED, "HTTP error 500");
+      }
+      attempts.incrementAndGet();
+      throw new Api.Error(Api.Error.Code.TOO_MANY_REQUESTS, "[429]");
+    }, executor, 3, false, 20);
+    try {
+      fetch.run(1, response -> {});
+      Assert.fail("Should have thrown an Api.Error");
+    } catch (Api.Error e) {
+      Assert.assertEquals(Api.Error.Code.UNEXPECTED, e.getCode());
+    }
+    Thread.sleep(50);
+    int settled = attempts.get();
+    Thread.sleep(300);
+    Assert.assertEquals("No retries once the caller got the failure", settled, attempts.get());
+  }
+
+}
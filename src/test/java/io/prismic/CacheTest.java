@@ -6,7 +6,21 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.prismic.Cache.BuiltInCache;
 import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Unit test for Cache.
@@ -18,6 +32,9 @@ public class CacheTest
     private static Cache fullCache;
     private final static long TTL = 1000L;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @BeforeClass
     public static void init() {
         emptyCache = fillCache(0);
@@ -51,6 +68,301 @@ public class CacheTest
         Assert.assertEquals("Full cache should accept new entries", cache.get("/bar/1"), defaultValue());
     }
 
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        Cache cache = new BuiltInCache(3);
+        cache.set("/a", TTL, defaultValue());
+        cache.set("/b", TTL, defaultValue());
+        cache.set("/c", TTL, defaultValue());
+        cache.get("/a");
+        cache.set("/d", TTL, defaultValue());
+        Assert.assertNull("Least recently used entry should be evicted", cache.get("/b"));
+        Assert.assertNotNull("Recently read entry should be kept", cache.get("/a"));
+        Assert.assertNotNull(cache.get("/d"));
+    }
+
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        final Cache cache = new BuiltInCache(10);
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<JsonNode>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.getOrSet("/api", TTL, () -> {
+                calls.incrementAndGet();
+                await(release);
+                return defaultValue();
+            })));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<JsonNode> result : results) {
+            Assert.assertEquals(defaultValue(), result.get());
+        }
+        executor.shutdown();
+        Assert.assertEquals("Concurrent misses should execute the callback once", 1, calls.get());
+    }
+
+    @Test
+    public void testCoalescedFailureIsPropagated() throws Exception {
+        final Cache cache = new BuiltInCache(10);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<JsonNode>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> cache.getOrSet("/api", TTL, () -> {
+                await(release);
+                throw new Api.Error(Api.Error.Code.TOO_MANY_REQUESTS, "[429]");
+            })));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<JsonNode> result : results) {
+            try {
+                result.get();
+                Assert.fail("Every waiter should get the failure");
+            } catch (ExecutionException e) {
+                Assert.assertEquals(Api.Error.Code.TOO_MANY_REQUESTS, ((Api.Error) e.getCause()).getCode());
+            }
+        }
+        executor.shutdown();
+        Assert.assertNull("A failed flight should not be cached", cache.get("/api"));
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        final BuiltInCache cache = new BuiltInCache(10);
+        cache.set("/swr", 50L, 5000L, null, defaultValue());
+        Thread.sleep(100);
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch refreshed = new CountDownLatch(1);
+        final JsonNode fresh = new ObjectMapper().createObjectNode().put("foo", "fresh");
+        Cache.Callback loader = () -> {
+            calls.incrementAndGet();
+            cache.set("/swr", TTL, fresh);
+            refreshed.countDown();
+            return fresh;
+        };
+        Assert.assertEquals("Stale entry should be served", defaultValue(), cache.getOrLoad("/swr", loader));
+        Assert.assertTrue(refreshed.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals("Refreshed entry should be served", fresh, cache.getOrLoad("/swr", loader));
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testStaleIfError() throws Exception {
+        BuiltInCache cache = new BuiltInCache(10);
+        cache.set("/sie", 50L, 0L, 5000L, defaultValue());
+        Thread.sleep(100);
+        JsonNode value = cache.getOrLoad("/sie", () -> {
+            throw new Api.Error(Api.Error.Code.UNEXPECTED, "HTTP error 503");
+        });
+        Assert.assertEquals("Stale entry should be served on error", defaultValue(), value);
+    }
+
+    @Test
+    public void testRefreshAhead() throws Exception {
+        final BuiltInCache cache = new BuiltInCache(10, 0L, 900L);
+        cache.set("/hot", TTL, defaultValue());
+        final CountDownLatch refreshed = new CountDownLatch(1);
+        Thread.sleep(200);
+        JsonNode value = cache.getOrLoad("/hot", () -> {
+            refreshed.countDown();
+            return defaultValue();
+        });
+        Assert.assertEquals(defaultValue(), value);
+        Assert.assertTrue("Hot entry should be refreshed before it expires", refreshed.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testParsedValuesAreCached() throws Exception {
+        final BuiltInCache cache = new BuiltInCache(10);
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger parses = new AtomicInteger();
+        final JsonNode json = new ObjectMapper().readTree("{\"page\":1,\"results_per_page\":20,\"total_results_size\":1,"
+            + "\"total_pages\":1,\"next_page\":null,\"prev_page\":null,\"results\":[" + StubServer.document("doc-1") + "]}");
+        Cache.Callback loader = () -> {
+            loads.incrementAndGet();
+            cache.set("/search", TTL, json);
+            return json;
+        };
+        Function<JsonNode, Response> parser = j -> {
+            parses.incrementAndGet();
+            return Response.parse(j);
+        };
+        Response first = cache.getOrLoadParsed("/search", Response.class, loader, parser);
+        Response second = cache.getOrLoadParsed("/search", Response.class, loader, parser);
+        Assert.assertSame("A hit should return the cached instance", first, second);
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, parses.get());
+        Assert.assertNull("The JSON tree should not be kept alongside its parsed form", cache.get("/search"));
+        Assert.assertEquals("doc-1", second.getResults().get(0).getId());
+        try {
+            second.getResults().clear();
+            Assert.fail("Cached responses should be immutable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMasterRefChangeDropsItsEntries() {
+        BuiltInCache cache = new BuiltInCache(10);
+        cache.set("/search?ref=old-ref&q=%5B%5D", TTL, defaultValue());
+        cache.set("/search?page=2&ref=old-ref", TTL, defaultValue());
+        cache.set("/search?ref=release-ref", TTL, defaultValue());
+        cache.set("/api", TTL, defaultValue());
+        cache.updateMasterRef("/api", "old-ref");
+        Assert.assertNotNull("Recording the first master ref should not drop anything", cache.get("/search?page=2&ref=old-ref"));
+        cache.updateMasterRef("/api", "new-ref");
+        Assert.assertNull(cache.get("/search?ref=old-ref&q=%5B%5D"));
+        Assert.assertNull(cache.get("/search?page=2&ref=old-ref"));
+        Assert.assertNotNull(cache.get("/search?ref=release-ref"));
+        Assert.assertNotNull(cache.get("/api"));
+    }
+
+    @Test
+    public void testLoadOnARetiredMasterRefIsNotStored() throws Exception {
+        final BuiltInCache cache = new BuiltInCache(10);
+        final String key = "/search?ref=old-ref&q=%5B%5D";
+        cache.updateMasterRef("/api", "old-ref");
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch moved = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<JsonNode> load = executor.submit(() -> cache.getOrSet(key, TTL, () -> {
+                loading.countDown();
+                try {
+                    moved.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return defaultValue();
+            }));
+            Assert.assertTrue(loading.await(1, TimeUnit.SECONDS));
+            cache.updateMasterRef("/api", "new-ref");
+            moved.countDown();
+            Assert.assertNotNull("The caller should still get its response", load.get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertNull("A response of the previous master ref should not be stored", cache.get(key));
+        cache.set("/search?page=2&ref=old-ref", TTL, defaultValue());
+        Assert.assertNull(cache.get("/search?page=2&ref=old-ref"));
+        cache.set("/search?ref=new-ref", TTL, defaultValue());
+        Assert.assertNotNull(cache.get("/search?ref=new-ref"));
+    }
+
+    @Test
+    public void testWeightBoundedCache() {
+        long budget = 64 * 1024;
+        BuiltInCache cache = new BuiltInCache(budget, Cache.Weigher.RETAINED_SIZE);
+        ObjectNode large = new ObjectMapper().createObjectNode();
+        large.put("text", new String(new char[1000]).replace('\0', 'x'));
+        for (int i = 0; i < 200; i++) {
+            cache.set("/large/" + i, TTL, large);
+        }
+        Assert.assertTrue("Weight should stay within budget: " + cache.getWeight(), cache.getWeight() <= budget);
+        Assert.assertTrue(cache.getWeight() > 0);
+        Assert.assertNotNull(cache.get("/large/199"));
+        Assert.assertNull(cache.get("/large/0"));
+        Assert.assertEquals(5, ((BuiltInCache) fillCache(5)).getWeight());
+    }
+
+    @Test
+    public void testOversizedEntryEvictsNothing() {
+        long budget = 64 * 1024;
+        BuiltInCache cache = new BuiltInCache(budget, Cache.Weigher.RETAINED_SIZE);
+        ObjectNode small = new ObjectMapper().createObjectNode().put("text", "small");
+        for (int i = 0; i < 10; i++) {
+            cache.set("/small/" + i, TTL, small);
+        }
+        long weight = cache.getWeight();
+        ObjectNode huge = new ObjectMapper().createObjectNode();
+        huge.put("text", new String(new char[100 * 1024]).replace('\0', 'x'));
+        cache.set("/huge", TTL, huge);
+        Assert.assertNull("Too heavy to be kept", cache.get("/huge"));
+        Assert.assertEquals(weight, cache.getWeight());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNotNull(cache.get("/small/" + i));
+        }
+    }
+
+    @Test
+    public void testMappedFileCacheSurvivesReopening() throws Exception {
+        File path = folder.newFile("prismic.cache");
+        try (MappedFileCache cache = new MappedFileCache(path, 16, 64 * 1024)) {
+            cache.set("/foo", 60000L, defaultValue());
+            cache.set("/expired", -1L, defaultValue());
+            Assert.assertEquals(defaultValue(), cache.get("/foo"));
+            Assert.assertNull(cache.get("/expired"));
+            Assert.assertNull(cache.get("/missing"));
+        }
+        try (MappedFileCache reopened = new MappedFileCache(path, 16, 64 * 1024)) {
+            Assert.assertEquals("A restarted JVM should find the cached response", defaultValue(), reopened.get("/foo"));
+        }
+        try (MappedFileCache resized = new MappedFileCache(path, 32, 64 * 1024)) {
+            Assert.assertNull("A file created with other sizes should be reset", resized.get("/foo"));
+        }
+    }
+
+    @Test
+    public void testMappedFileCacheOverwritesOldestRecords() throws Exception {
+        try (MappedFileCache cache = new MappedFileCache(folder.newFile("ring.cache"), 1024, 4096)) {
+            for (int i = 0; i < 100; i++) {
+                cache.set("/foo/" + i, 60000L, defaultValue());
+            }
+            Assert.assertNull(cache.get("/foo/0"));
+            Assert.assertEquals(defaultValue(), cache.get("/foo/99"));
+            cache.set("/search?ref=old-ref", 60000L, defaultValue());
+            cache.invalidateRef("old-ref");
+            Assert.assertNull(cache.get("/search?ref=old-ref"));
+            Assert.assertEquals(defaultValue(), cache.get("/foo/99"));
+        }
+    }
+
+    @Test
+    public void testTieredCachePromotesFromFile() throws Exception {
+        File path = folder.newFile("tiered.cache");
+        try (MappedFileCache file = new MappedFileCache(path, 16, 64 * 1024)) {
+            new Cache.TieredCache(new BuiltInCache(10), file).set("/foo", 60000L, defaultValue());
+        }
+        try (MappedFileCache file = new MappedFileCache(path, 16, 64 * 1024)) {
+            BuiltInCache memory = new BuiltInCache(10);
+            Cache cache = new Cache.TieredCache(memory, file);
+            JsonNode value = cache.getOrLoad("/foo", () -> {
+                throw new AssertionError("Should be found in the file");
+            });
+            Assert.assertEquals(defaultValue(), value);
+            Assert.assertEquals("Should be promoted to memory", defaultValue(), memory.get("/foo"));
+        }
+    }
+
+    @Test
+    public void testPromotedEntriesKeepTheirStaleWindows() throws Exception {
+        File path = folder.newFile("windows.cache");
+        try (MappedFileCache file = new MappedFileCache(path, 16, 64 * 1024)) {
+            file.set("/default", 200L, defaultValue());
+            BuiltInCache memory = new BuiltInCache(10, 5000L, 0L);
+            Cache cache = new Cache.TieredCache(memory, file);
+            Assert.assertEquals(defaultValue(), cache.get("/default"));
+            Thread.sleep(300);
+            JsonNode value = memory.getOrLoad("/default", () -> {
+                throw new Api.Error(Api.Error.Code.UNEXPECTED, "HTTP error 503");
+            });
+            Assert.assertEquals("The memory tier's default window should apply", defaultValue(), value);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static Cache fillCache(int nbDocuments)
     {
         Cache cache = new BuiltInCache(10);
@@ -0,0 +1,123 @@
+package io.prismic;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests of the batching of document lookups, against a local repository stub.
+ */
+public class DocumentLoaderTest {
+
+  private StubServer server;
+  private Api api;
+
+  @Before
+  public void init() throws Exception {
+    server = new StubServer(250);
+    api = Api.get(server.endpoint(), null, null, new Cache.NoCache(), new Logger.NoLogger(), null);
+  }
+
+  @After
+  public void shutdown() {
+    server.stop();
+  }
+
+  @Test
+  public void lookupsAreBatchedUntilAResultIsNeeded() {
+    DocumentLoader loader = new DocumentLoader(api);
+    List<CompletableFuture<Document>> documents = new ArrayList<>();
+    for (int i = 1; i <= 30; i++) {
+      documents.add(loader.getByID("doc-" + i));
+    }
+    CompletableFuture<Document> byUid = loader.getByUID("article", "doc-7");
+    CompletableFuture<Document> missing = loader.getByID("doc-999");
+    Assert.assertSame(documents.get(2), loader.getByID("doc-3"));
+    Assert.assertEquals(0, server.searchHits.get());
+
+    Assert.assertEquals("doc-1", documents.get(0).join().getId());
+    Assert.assertEquals("One query by id, one by uid", 2, server.searchHits.get());
+    for (int i = 0; i < 30; i++) {
+      Assert.assertEquals("doc-" + (i + 1), documents.get(i).join().getId());
+    }
+    Assert.assertEquals("doc-7", byUid.join().getUid());
+    Assert.assertNull(missing.join());
+
+    Assert.assertEquals("doc-5", loader.getByID("doc-5").join().getId());
+    Assert.assertEquals("Already loaded", 2, server.searchHits.get());
+  }
+
+  @Test
+  public void largeBatchesAreSplit() {
+    DocumentLoader loader = new DocumentLoader(api);
+    List<CompletableFuture<Document>> documents = new ArrayList<>();
+    for (int i = 1; i <= 250; i++) {
+      documents.add(loader.getByID("doc-" + i));
+    }
+    loader.dispatch();
+    Assert.assertEquals(3, server.searchHits.get());
+    for (int i = 0; i < 250; i++) {
+      Assert.assertEquals("doc-" + (i + 1), documents.get(i).join().getId());
+    }
+  }
+
+  @Test
+  public void everyLanguageVariantOfABatchIsRead() {
+    server.languages.set(3);
+    DocumentLoader loader = new DocumentLoader(api);
+    List<CompletableFuture<Document>> documents = new ArrayList<>();
+    for (int i = 1; i <= 50; i++) {
+      documents.add(loader.getByUID("article", "doc-" + i));
+    }
+    loader.dispatch();
+    for (int i = 0; i < 50; i++) {
+      Assert.assertEquals("doc-" + (i + 1), documents.get(i).join().getUid());
+    }
+    Assert.assertEquals("150 variants, 100 per page", 2, server.searchHits.get());
+  }
+
+  @Test
+  public void linkedDocumentsArePrefetchedLevelByLevel() {
+    server.links.put("doc-1", Arrays.asList("doc-2", "doc-3"));
+    server.links.put("doc-2", Arrays.asList("doc-4", "doc-3", "doc-999"));
+    server.links.put("doc-4", Collections.singletonList("doc-5"));
+    DocumentLoader loader = new DocumentLoader(api);
+    Document root = loader.getByID("doc-1").join();
+    Assert.assertEquals("The link fragment and the slice", 2, root.getLinkedDocuments().size());
+
+    Map<String, Document> linked = loader.prefetchLinkedDocuments(root, 2);
+    Assert.assertEquals(Arrays.asList("doc-2", "doc-3", "doc-4"), new ArrayList<>(linked.keySet()));
+    Assert.assertEquals("Title doc-4", linked.get("doc-4").getText("article.title"));
+    Assert.assertEquals("One query for the root, one per level", 3, server.searchHits.get());
+  }
+
+  @Test
+  public void prefetchedBatchesAreSentConcurrently() {
+    List<String> ids = new ArrayList<>();
+    for (int i = 2; i <= 250; i++) {
+      ids.add("doc-" + i);
+    }
+    server.links.put("doc-1", ids);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      DocumentLoader loader = new DocumentLoader(api, executor, 2);
+      Map<String, Document> linked = loader.prefetchLinkedDocuments(loader.getByID("doc-1").join(), 1);
+      Assert.assertEquals(249, linked.size());
+      Assert.assertEquals("doc-250", linked.get("doc-250").getId());
+      Assert.assertEquals("One query for the root, three for the links", 4, server.searchHits.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
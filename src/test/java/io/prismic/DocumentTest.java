@@ -6,8 +6,18 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.time.ZoneOffset.UTC;
 
@@ -260,6 +270,106 @@ public class DocumentTest {
     );
   }
 
+  @Test
+  public void nestedAndOverlappingSpans() {
+    List<Fragment.StructuredText.Block> blocks = new ArrayList<>();
+    blocks.add(new Fragment.StructuredText.Block.Paragraph("Fish & <chips> are\nbest with vinegar", Arrays.asList(
+      new Fragment.StructuredText.Span.Strong(0, 14),
+      new Fragment.StructuredText.Span.Em(7, 14),
+      new Fragment.StructuredText.Span.Hyperlink(19, 36, new Fragment.WebLink("https://example.org?a=1&b=2", null, null)),
+      new Fragment.StructuredText.Span.Label(24, 28, "code")), null));
+    blocks.add(new Fragment.StructuredText.Block.Paragraph("overlapping spans", Arrays.asList(
+      new Fragment.StructuredText.Span.Strong(0, 7),
+      new Fragment.StructuredText.Span.Em(4, 12)), "intro"));
+    blocks.add(new Fragment.StructuredText.Block.Paragraph("past the end", Arrays.asList(
+      new Fragment.StructuredText.Span.Em(5, 40),
+      new Fragment.StructuredText.Span.Strong(9, 12)), null));
+    Fragment.StructuredText text = new Fragment.StructuredText(blocks);
+    Assert.assertEquals(
+      "<p><strong>Fish &amp; <em>&lt;chips&gt;</em></strong> are<br/><a href=\"https://example.org?a=1&b=2\">best <span class=\"code\">with</span> vinegar</a></p>"
+        + "<p class=\"intro\"><strong>over<em>lap</em>ping </strong>spans</p><p>past <em>the <strong>end</strong></em></p>",
+      text.asHtml(linkResolver)
+    );
+    HtmlSerializer serializer = (element, content) -> element instanceof Fragment.StructuredText.Span.Em ? "<i>" + content + "</i>" : null;
+    Assert.assertEquals(
+      "<p><strong>Fish &amp; <i>&lt;chips&gt;</i></strong> are<br/><a href=\"https://example.org?a=1&b=2\">best <span class=\"code\">with</span> vinegar</a></p>"
+        + "<p class=\"intro\"><strong>over<i>lap</i>ping </strong>spans</p><p>past <i>the <strong>end</strong></i></p>",
+      text.asHtml(linkResolver, serializer)
+    );
+  }
+
+  @Test
+  public void htmlCanBeWrittenToAWriter() throws Exception {
+    String[] fixtures = {"/fixtures/document_store.json", "/fixtures/simple_slices.json", "/fixtures/composite_slices.json"};
+    for (String fixture : fixtures) {
+      Document doc = Document.parse(getJson(fixture));
+      StringWriter out = new StringWriter();
+      doc.asHtml(out, linkResolver);
+      Assert.assertEquals(doc.asHtml(linkResolver), out.toString());
+      for (Fragment fragment : doc.getFragments().values()) {
+        if (fragment instanceof Fragment.SliceZone) {
+          out = new StringWriter();
+          ((Fragment.SliceZone) fragment).asHtml(out, linkResolver);
+          Assert.assertEquals(((Fragment.SliceZone) fragment).asHtml(linkResolver), out.toString());
+        }
+      }
+    }
+
+    Fragment.StructuredText text = new Fragment.StructuredText(Collections.singletonList(
+      new Fragment.StructuredText.Block.Paragraph("one\ntwo", Collections.emptyList(), null)));
+    StringWriter out = new StringWriter();
+    text.asHtml(out, linkResolver, (element, content) -> "<div>\n" + content + "</div>");
+    Assert.assertEquals("<div><br/>one<br/>two</div>", out.toString());
+  }
+
+  @Test
+  public void htmlCacheRendersOncePerDocumentVersion() throws Exception {
+    AtomicInteger renders = new AtomicInteger();
+    HtmlSerializer counting = (element, content) -> {
+      renders.incrementAndGet();
+      return null;
+    };
+    HtmlCache cache = new HtmlCache(2);
+    Document doc = Document.parse(getJson("/fixtures/document_store.json"));
+    String html = doc.getHtml("store.description", "master-ref", linkResolver, counting, cache);
+    int rendered = renders.get();
+    Assert.assertTrue(rendered > 0);
+    Assert.assertEquals(html, doc.getHtml("store.description", "master-ref", linkResolver, counting, cache));
+    Assert.assertEquals(html, Document.parse(getJson("/fixtures/document_store.json")).getHtml("store.description", "master-ref", linkResolver, counting, cache));
+    Assert.assertEquals("Same document, same version: not rendered again", rendered, renders.get());
+
+    Assert.assertEquals(doc.getHtml("store.description", linkResolver), doc.getHtml("store.description", "master-ref", linkResolver, null, cache));
+    Assert.assertEquals(doc.asHtml(linkResolver, counting), doc.asHtml("master-ref", linkResolver, counting, cache));
+    HtmlCache.Stats stats = cache.getStats();
+    Assert.assertEquals(2, stats.getHits());
+    Assert.assertEquals(3, stats.getMisses());
+    Assert.assertEquals(1, stats.getEvictions());
+    Assert.assertEquals(2, stats.getSize());
+  }
+
+  @Test
+  public void htmlCacheKeepsEachRefApart() throws Exception {
+    AtomicInteger renders = new AtomicInteger();
+    HtmlSerializer counting = (element, content) -> {
+      renders.incrementAndGet();
+      return null;
+    };
+    HtmlCache cache = new HtmlCache(10);
+    Document published = Document.parse(getJson("/fixtures/document_store.json"));
+    Document preview = Document.parse(getJson("/fixtures/document_store.json"));
+    published.getHtml("store.description", "master-ref", linkResolver, counting, cache);
+    int rendered = renders.get();
+    preview.getHtml("store.description", "preview-ref", linkResolver, counting, cache);
+    Assert.assertEquals("Same id and date on another ref: rendered again", 2 * rendered, renders.get());
+    HtmlCache.Stats stats = cache.getStats();
+    Assert.assertEquals(0, stats.getHits());
+    Assert.assertEquals(2, stats.getMisses());
+    Assert.assertEquals(2, stats.getSize());
+
+    published.getHtml("store.description", null, linkResolver, counting, cache);
+    Assert.assertEquals("Without a ref, nothing is cached", 2, cache.getStats().getMisses());
+  }
+
   @Test
   public void fragmentWithNoType() throws Exception {
     ObjectMapper mapper = new ObjectMapper();
@@ -284,6 +394,106 @@ public class DocumentTest {
     );
   }
 
+  @Test
+  public void streamingDecoderMatchesTreeParser() throws Exception {
+    String[] fixtures = {"/fixtures/document_store.json", "/fixtures/simple_slices.json", "/fixtures/composite_slices.json", "/fixtures/language.json"};
+    StringBuilder results = new StringBuilder();
+    for (String fixture : fixtures) {
+      results.append(results.length() > 0 ? "," : "").append(getJson(fixture).toString());
+    }
+    String json = "{\"page\":1,\"results_per_page\":20,\"total_results_size\":4,\"total_pages\":1,"
+      + "\"next_page\":null,\"prev_page\":null,\"results\":[" + results + "]}";
+    Response parsed = Response.parse(new ObjectMapper().readTree(json));
+    Response decoded = ResponseDecoder.decode(new ObjectMapper().getFactory().createParser(json));
+    Response lazy = ResponseDecoder.decode(new ObjectMapper().getFactory().createParser(json), true);
+    Assert.assertEquals(parsed.getTotalResultsSize(), decoded.getTotalResultsSize());
+    Assert.assertNull(decoded.getNextPage());
+    Assert.assertEquals(parsed.getResults().size(), decoded.getResults().size());
+    for (int i = 0; i < parsed.getResults().size(); i++) {
+      Document expected = parsed.getResults().get(i);
+      Document actual = decoded.getResults().get(i);
+      Assert.assertEquals(expected.getId(), actual.getId());
+      Assert.assertEquals(expected.getUid(), actual.getUid());
+      Assert.assertEquals(expected.getTags(), actual.getTags());
+      Assert.assertEquals(expected.getSlugs(), actual.getSlugs());
+      Assert.assertEquals(expected.getLang(), actual.getLang());
+      Assert.assertEquals(expected.getAlternateLanguages().size(), actual.getAlternateLanguages().size());
+      Assert.assertEquals(expected.getFirstPublicationDate(), actual.getFirstPublicationDate());
+      Assert.assertEquals(expected.getFragments().keySet(), actual.getFragments().keySet());
+      Assert.assertEquals(expected.asHtml(linkResolver), actual.asHtml(linkResolver));
+      Assert.assertEquals(expected.asHtml(linkResolver), lazy.getResults().get(i).asHtml(linkResolver));
+    }
+  }
+
+  @Test
+  public void lazyDocumentsDecodeOnlyWhatIsRead() throws Exception {
+    JsonNode node = getJson("/fixtures/document_store.json");
+    Document eager = Document.parse(node);
+    Document lazy = Document.parse(node, true);
+    LazyFragments fragments = (LazyFragments) lazy.getFragments();
+    Assert.assertEquals(eager.getFragments().keySet(), lazy.getFragments().keySet());
+    Assert.assertEquals(0, fragments.decoded());
+
+    Fragment.GeoPoint point = lazy.getGeoPoint("store.coordinates");
+    Assert.assertEquals(eager.getGeoPoint("store.coordinates").getLatitude(), point.getLatitude());
+    Assert.assertEquals(1, fragments.decoded());
+    Assert.assertSame(point, lazy.getGeoPoint("store.coordinates"));
+
+    Assert.assertEquals(eager.asHtml(linkResolver), lazy.asHtml(linkResolver));
+    Assert.assertEquals(fragments.size(), fragments.decoded());
+  }
+
+  @Test
+  public void lazyFragmentsAreDecodedOnceAcrossThreads() throws Exception {
+    Document lazy = Document.parse(getJson("/fixtures/document_store.json"), true);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Fragment>> reads = new ArrayList<>();
+      for (int i = 0; i < 32; i++) {
+        reads.add(executor.submit(() -> lazy.get("store.coordinates")));
+      }
+      Fragment first = reads.get(0).get();
+      for (Future<Fragment> read : reads) {
+        Assert.assertSame(first, read.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void multiValuedFragmentsAreIndexedByFieldName() {
+    Map<String, Fragment> fragments = new LinkedHashMap<>();
+    fragments.put("doc.tags[1]", new Fragment.Text("second"));
+    fragments.put("doc.title", new Fragment.Text("title"));
+    fragments.put("doc.tags[0]", new Fragment.Text("first"));
+    fragments.put("doc.tags[x]", new Fragment.Text("not indexed"));
+    fragments.put("doc.tag[0]", new Fragment.Text("other field"));
+    GroupDoc doc = new GroupDoc(fragments);
+
+    List<Fragment> tags = doc.getAll("doc.tags");
+    Assert.assertEquals(2, tags.size());
+    Assert.assertEquals("second", ((Fragment.Text) tags.get(0)).getValue());
+    Assert.assertEquals("first", ((Fragment.Text) tags.get(1)).getValue());
+    Assert.assertEquals("second", doc.getText("doc.tags"));
+    Assert.assertEquals("title", doc.getText("doc.title"));
+    Assert.assertTrue(doc.getAll("doc.title").isEmpty());
+    Assert.assertTrue(doc.getAll("doc.tags[x]").isEmpty());
+    Assert.assertEquals(1, doc.getAll("doc.tag").size());
+  }
+
+  @Test
+  public void nullCollectionsAreAccepted() {
+    Document document = new Document("id", null, "article", null, null, null, "en-us", null, null, null, null);
+    Assert.assertTrue(document.getTags().isEmpty());
+    Assert.assertTrue(document.getSlugs().isEmpty());
+    Assert.assertTrue(document.getFragments().isEmpty());
+    Assert.assertNull(document.get("article.title"));
+    Fragment.DocumentLink link = new Fragment.DocumentLink("id", null, "article", null, null, "en-us", null, false);
+    Assert.assertTrue(link.getTags().isEmpty());
+    Assert.assertTrue(new Response(null, 1, 20, 0, 0, null, null).getResults().isEmpty());
+  }
+
   /**
    * Return JSON node from resource
    * @param resource Json resource
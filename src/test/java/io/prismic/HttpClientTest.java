@@ -0,0 +1,273 @@
+package io.prismic;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.prismic.core.CacheControl;
+import io.prismic.core.CircuitBreakerTransport;
+import io.prismic.core.HttpClient;
+import io.prismic.core.HttpTransport;
+import io.prismic.core.Json;
+import io.prismic.core.PooledHttpTransport;
+import io.prismic.core.RateLimitedTransport;
+import io.prismic.core.RateLimiter;
+import io.prismic.core.RetryPolicy;
+import io.prismic.core.RetryingTransport;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of the HTTP layer against a local stub server.
+ */
+public class HttpClientTest {
+
+  private HttpServer server;
+  private String baseUrl;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicBoolean down = new AtomicBoolean();
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/ok", exchange -> {
+      hits.incrementAndGet();
+      exchange.getResponseHeaders().add("Cache-Control", "max-age=60");
+      StubServer.respond(exchange, 200, "{\"foo\":\"bar\"}");
+    });
+    server.createContext("/commented", exchange -> {
+      hits.incrementAndGet();
+      StubServer.respond(exchange, 200, "{/* comment */ \"foo\":\"bar\"}");
+    });
+    server.createContext("/limited", exchange -> {
+      hits.incrementAndGet();
+      StubServer.respond(exchange, 429, "slow down");
+    });
+    server.createContext("/flaky", exchange -> {
+      if (hits.incrementAndGet() <= 2) {
+        StubServer.respond(exchange, 503, "unavailable");
+      } else {
+        StubServer.respond(exchange, 200, "{\"foo\":\"bar\"}");
+      }
+    });
+    server.createContext("/later", exchange -> {
+      hits.incrementAndGet();
+      exchange.getResponseHeaders().add("Retry-After", "120");
+      StubServer.respond(exchange, 429, "come back later");
+    });
+    server.createContext("/toggle", exchange -> {
+      hits.incrementAndGet();
+      if (down.get()) {
+        StubServer.respond(exchange, 500, "down");
+      } else {
+        exchange.getResponseHeaders().add("Cache-Control", "max-age=0");
+        StubServer.respond(exchange, 200, "{\"foo\":\"bar\"}");
+      }
+    });
+    server.start();
+    baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void fetchThroughPooledTransport() {
+    PooledHttpTransport transport = new PooledHttpTransport(4, 2, 1000, 1000);
+    Cache cache = new Cache.BuiltInCache(10);
+    JsonNode json = HttpClient.fetch(baseUrl + "/ok", null, cache, null, transport);
+    Assert.assertEquals("bar", json.path("foo").asText());
+    HttpClient.fetch(baseUrl + "/ok", null, cache, null, transport);
+    Assert.assertEquals("Cached response should not hit the server", 1, hits.get());
+    Assert.assertEquals("Connection should be released", 0, transport.getStats().getLeased());
+    Assert.assertEquals(1, transport.getStats().getRequests());
+  }
+
+  @Test
+  public void fetchUsesTheSharedReader() {
+    try {
+      HttpClient.fetch(baseUrl + "/commented", null, null, null, null);
+      Assert.fail("Comments are not allowed by default");
+    } catch (Api.Error e) {
+      Assert.assertEquals(Api.Error.Code.UNEXPECTED, e.getCode());
+    }
+    Json.setReader(new ObjectMapper().reader().with(JsonParser.Feature.ALLOW_COMMENTS));
+    try {
+      JsonNode json = HttpClient.fetch(baseUrl + "/commented", null, null, null, null);
+      Assert.assertEquals("bar", json.path("foo").asText());
+    } finally {
+      Json.setReader(null);
+    }
+  }
+
+  @Test
+  public void parseCacheControl() {
+    CacheControl cacheControl = CacheControl.parse("public, max-age=60, stale-while-revalidate=30, stale-if-error=\"600\"");
+    Assert.assertTrue(cacheControl.isCacheable());
+    Assert.assertEquals(Long.valueOf(60000), cacheControl.getMaxAge());
+    Assert.assertEquals(Long.valueOf(30000), cacheControl.getStaleWhileRevalidate());
+    Assert.assertEquals(Long.valueOf(600000), cacheControl.getStaleIfError());
+    Assert.assertFalse(CacheControl.parse("no-store, max-age=60").isCacheable());
+    Assert.assertFalse(CacheControl.parse(null).isCacheable());
+  }
+
+  @Test
+  public void tooManyRequests() {
+    PooledHttpTransport transport = new PooledHttpTransport();
+    try {
+      HttpClient.fetch(baseUrl + "/limited", null, null, null, transport);
+      Assert.fail("Should have thrown an Api.Error");
+    } catch (Api.Error error) {
+      Assert.assertEquals(Api.Error.Code.TOO_MANY_REQUESTS, error.getCode());
+    }
+    Assert.assertEquals("Connection should be released", 0, transport.getStats().getLeased());
+  }
+
+  @Test
+  public void transientErrorsAreRetried() {
+    RetryingTransport transport = new RetryingTransport(new PooledHttpTransport(), new RetryPolicy(3, 10, 100, 5000));
+    JsonNode json = HttpClient.fetch(baseUrl + "/flaky", null, null, null, transport);
+    Assert.assertEquals("bar", json.path("foo").asText());
+    Assert.assertEquals(3, hits.get());
+    RetryingTransport.Stats stats = transport.getStats();
+    Assert.assertEquals(1, stats.getCalls());
+    Assert.assertEquals(2, stats.getRetries());
+    Assert.assertEquals(1, stats.getRecovered());
+    Assert.assertEquals(0, stats.getExhausted());
+  }
+
+  @Test
+  public void retryAfterBeyondTheDeadlineIsNotWaitedFor() {
+    RetryingTransport transport = new RetryingTransport(new PooledHttpTransport(), new RetryPolicy(5, 10, 100, 2000));
+    long start = System.currentTimeMillis();
+    try {
+      HttpClient.fetch(baseUrl + "/later", null, null, null, transport);
+      Assert.fail("Should have thrown an Api.Error");
+    } catch (Api.Error error) {
+      Assert.assertEquals(Api.Error.Code.TOO_MANY_REQUESTS, error.getCode());
+    }
+    Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+    Assert.assertEquals(1, hits.get());
+    Assert.assertEquals(1, transport.getStats().getExhausted());
+  }
+
+  @Test
+  public void attemptsAreBounded() {
+    RetryingTransport transport = new RetryingTransport(new PooledHttpTransport(), new RetryPolicy(2, 10, 100, 0));
+    try {
+      HttpClient.fetch(baseUrl + "/flaky", null, null, null, transport);
+      Assert.fail("Should have thrown an Api.Error");
+    } catch (Api.Error error) {
+      Assert.assertEquals(Api.Error.Code.UNEXPECTED, error.getCode());
+    }
+    Assert.assertEquals(2, hits.get());
+    Assert.assertEquals(1, transport.getStats().getRetries());
+  }
+
+  @Test
+  public void openCircuitServesCachedResponsesOrFailsFast() throws Exception {
+    CircuitBreakerTransport transport = new CircuitBreakerTransport(new PooledHttpTransport(), 2, 0.5, 5000, 200);
+    Cache cache = new Cache.BuiltInCache(10, 0L, 0L);
+    Assert.assertEquals("bar", HttpClient.fetch(baseUrl + "/toggle", null, cache, null, transport).path("foo").asText());
+    Thread.sleep(5);
+    down.set(true);
+    try {
+      HttpClient.fetch(baseUrl + "/toggle", null, cache, null, transport);
+      Assert.fail("Should have thrown an Api.Error");
+    } catch (Api.Error error) {
+      Assert.assertEquals("A real upstream error", Api.Error.Code.UNEXPECTED, error.getCode());
+    }
+    Assert.assertEquals(CircuitBreakerTransport.State.OPEN, transport.getState(baseUrl));
+
+    Assert.assertEquals("The expired entry is served while open", "bar",
+      HttpClient.fetch(baseUrl + "/toggle", null, cache, null, transport).path("foo").asText());
+    try {
+      HttpClient.fetch(baseUrl + "/ok", null, cache, null, transport);
+      Assert.fail("Should have thrown an Api.Error");
+    } catch (Api.Error error) {
+      Assert.assertEquals(Api.Error.Code.CIRCUIT_OPEN, error.getCode());
+    }
+    Assert.assertEquals("Nothing sent while open", 2, hits.get());
+    Assert.assertEquals(2, transport.getStats().getRejected());
+
+    down.set(false);
+    Thread.sleep(250);
+    HttpClient.fetch(baseUrl + "/ok", null, cache, null, transport);
+    Assert.assertEquals("The trial request closes the circuit", CircuitBreakerTransport.State.CLOSED, transport.getState(baseUrl));
+    Assert.assertEquals(1, transport.getStats().getTrips());
+  }
+
+  @Test
+  public void failedTrialRequestReopensTheCircuit() throws Exception {
+    HttpTransport failing = (url, headers, proxy) -> {
+      throw new StackOverflowError("Not an exception");
+    };
+    CircuitBreakerTransport transport = new CircuitBreakerTransport(failing, 1, 1, 5000, 50);
+    for (int attempt = 0; attempt < 2; attempt++) {
+      try {
+        transport.get(baseUrl + "/ok", Collections.emptyMap(), null);
+        Assert.fail("Should have thrown");
+      } catch (StackOverflowError e) {
+        // The trial request failed too
+      }
+      Assert.assertEquals(CircuitBreakerTransport.State.OPEN, transport.getState(baseUrl));
+      Thread.sleep(100);
+    }
+    Assert.assertEquals(2, transport.getStats().getTrips());
+  }
+
+  @Test
+  public void rateLimiterFailsFastOrWaits() {
+    RateLimiter limiter = new RateLimiter.InMemory(10, 2);
+    RateLimitedTransport failFast = new RateLimitedTransport(new PooledHttpTransport(), limiter, 0);
+    HttpClient.fetch(baseUrl + "/ok", null, null, null, failFast);
+    HttpClient.fetch(baseUrl + "/ok", null, null, null, failFast);
+    try {
+      HttpClient.fetch(baseUrl + "/ok", null, null, null, failFast);
+      Assert.fail("Should have thrown an Api.Error");
+    } catch (Api.Error error) {
+      Assert.assertEquals(Api.Error.Code.TOO_MANY_REQUESTS, error.getCode());
+    }
+    Assert.assertEquals("The burst only", 2, hits.get());
+    Assert.assertEquals(1, failFast.getStats().getRejected());
+
+    RateLimitedTransport blocking = new RateLimitedTransport(new PooledHttpTransport(), limiter, 1000);
+    HttpClient.fetch(baseUrl + "/ok", null, null, null, blocking);
+    Assert.assertEquals(3, hits.get());
+    Assert.assertEquals(1, blocking.getStats().getDelayed());
+  }
+
+  @Test
+  public void fileBackedLimitersShareTheirBuckets() throws IOException {
+    Path directory = Files.createTempDirectory("prismic-limiter");
+    try {
+      RateLimiter first = new RateLimiter.FileBacked(directory, 0.01, 2);
+      RateLimiter second = new RateLimiter.FileBacked(directory, 0.01, 2);
+      Assert.assertEquals(0, first.tryAcquire("http://repo.prismic.io:80"));
+      Assert.assertEquals(0, second.tryAcquire("http://repo.prismic.io:80"));
+      Assert.assertTrue(first.tryAcquire("http://repo.prismic.io:80") > 0);
+      Assert.assertEquals("Other hosts have their own bucket", 0, second.tryAcquire("http://other.prismic.io:80"));
+    } finally {
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+        for (Path file : files) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(directory);
+    }
+  }
+
+}
@@ -0,0 +1,190 @@
+package io.prismic;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A local prismic.io repository stub, serving an /api document and a search form over a collection
+ * of generated documents ("doc-1" to "doc-N").
+ */
+class StubServer {
+
+  private static final Pattern QUOTED = Pattern.compile("\"([^\"]*)\"");
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+  private final int size;
+  final AtomicInteger apiHits = new AtomicInteger();
+  final AtomicInteger searchHits = new AtomicInteger();
+  final List<String> queries = new CopyOnWriteArrayList<>();
+  /** The number of searches to answer with 429 Too Many Requests */
+  final AtomicInteger tooManyRequests = new AtomicInteger();
+  /** The number of languages of each document: searches by uid return every language variant of the documents */
+  final AtomicInteger languages = new AtomicInteger(1);
+  /** By document id, the ids of the documents it links to, from a link fragment and from a slice */
+  final Map<String, List<String>> links = new ConcurrentHashMap<>();
+
+  StubServer(int size) throws IOException {
+    this.size = size;
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(executor);
+    this.server.createContext("/api/documents/search", exchange -> {
+      searchHits.incrementAndGet();
+      if (tooManyRequests.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+        respond(exchange, 429, "Too many requests");
+        return;
+      }
+      respond(exchange, 200, search(params(exchange)));
+    });
+    this.server.createContext("/api", exchange -> {
+      apiHits.incrementAndGet();
+      respond(exchange, 200, apiDocument());
+    });
+    this.server.start();
+  }
+
+  String endpoint() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+  }
+
+  void stop() {
+    server.stop(0);
+    executor.shutdown();
+  }
+
+  private String apiDocument() {
+    return "{\"refs\":[{\"id\":\"master\",\"ref\":\"master-ref\",\"label\":\"Master\",\"isMasterRef\":true}],"
+      + "\"bookmarks\":{\"home\":\"doc-1\"},\"types\":{\"article\":\"Article\"},\"tags\":[],"
+      + "\"forms\":{\"everything\":{\"method\":\"GET\",\"enctype\":\"application/x-www-form-urlencoded\","
+      + "\"action\":\"" + endpoint() + "/documents/search\",\"fields\":{"
+      + "\"ref\":{\"type\":\"String\",\"multiple\":false},"
+      + "\"q\":{\"type\":\"String\",\"multiple\":true},"
+      + "\"lang\":{\"type\":\"String\",\"multiple\":false},"
+      + "\"page\":{\"type\":\"Integer\",\"multiple\":false,\"default\":\"1\"},"
+      + "\"pageSize\":{\"type\":\"Integer\",\"multiple\":false,\"default\":\"20\"}}}},"
+      + "\"experiments\":{}}";
+  }
+
+  private String search(Map<String, String> params) {
+    String q = params.getOrDefault("q", "");
+    queries.add(q);
+    List<String> ids = new ArrayList<>();
+    int page = Integer.parseInt(params.getOrDefault("page", "1"));
+    int pageSize = Integer.parseInt(params.getOrDefault("pageSize", "20"));
+    if (q.contains("document.id") || q.contains(".uid")) {
+      int variants = q.contains(".uid") ? languages.get() : 1;
+      List<String> matches = new ArrayList<>();
+      Matcher matcher = QUOTED.matcher(q);
+      while (matcher.find()) {
+        String id = matcher.group(1);
+        if (id.startsWith("doc-") && Integer.parseInt(id.substring(4)) <= size) {
+          for (int variant = 0; variant < variants; variant++) {
+            matches.add(variant == 0 ? id : id + "~" + variant);
+          }
+        }
+      }
+      ids.addAll(matches.subList(Math.min((page - 1) * pageSize, matches.size()), Math.min(page * pageSize, matches.size())));
+      return results(ids, page, pageSize, matches.size());
+    }
+    for (int i = (page - 1) * pageSize + 1; i <= Math.min(page * pageSize, size); i++) {
+      ids.add("doc-" + i);
+    }
+    return results(ids, page, pageSize, size);
+  }
+
+  private String results(List<String> ids, int page, int pageSize, int total) {
+    int totalPages = (total + pageSize - 1) / pageSize;
+    StringBuilder json = new StringBuilder("{\"page\":" + page + ",\"results_per_page\":" + pageSize
+      + ",\"total_results_size\":" + total + ",\"total_pages\":" + totalPages
+      + ",\"next_page\":" + (page < totalPages ? "\"next\"" : "null")
+      + ",\"prev_page\":null,\"results\":[");
+    for (int i = 0; i < ids.size(); i++) {
+      if (i > 0) json.append(",");
+      String[] entry = ids.get(i).split("~");
+      String id = entry[0];
+      json.append(document(id, links.getOrDefault(id, Collections.emptyList()), entry.length > 1 ? Integer.parseInt(entry[1]) : 0));
+    }
+    return json.append("]}").toString();
+  }
+
+  static String document(String id) {
+    return document(id, Collections.emptyList());
+  }
+
+  /**
+   * @param links the first one as a link fragment, the others in the repeated part of a slice
+   */
+  static String document(String id, List<String> links) {
+    return document(id, links, 0);
+  }
+
+  /**
+   * @param variant the language variant, 0 for the main language, with the same uid but another id
+   */
+  static String document(String id, List<String> links, int variant) {
+    StringBuilder data = new StringBuilder("\"title\":{\"type\":\"Text\",\"value\":\"Title " + id + "\"}");
+    if (!links.isEmpty()) {
+      data.append(",\"related\":").append(link(links.get(0)));
+      data.append(",\"body\":{\"type\":\"SliceZone\",\"value\":[{\"type\":\"Slice\",\"slice_type\":\"links\",\"slice_label\":null,"
+        + "\"non-repeat\":{},\"repeat\":[");
+      for (int i = 1; i < links.size(); i++) {
+        if (i > 1) data.append(",");
+        data.append("{\"link\":").append(link(links.get(i))).append("}");
+      }
+      data.append("]}]}");
+    }
+    String documentId = variant == 0 ? id : id + "-" + variant;
+    String lang = variant == 0 ? "en-us" : "lang-" + variant;
+    return "{\"id\":\"" + documentId + "\",\"uid\":\"" + id + "\",\"type\":\"article\",\"href\":\"\",\"tags\":[],\"slugs\":[\"" + id + "\"],"
+      + "\"lang\":\"" + lang + "\",\"alternate_languages\":[],\"first_publication_date\":null,\"last_publication_date\":null,"
+      + "\"data\":{\"article\":{" + data + "}}}";
+  }
+
+  private static String link(String id) {
+    return "{\"type\":\"Link.document\",\"value\":{\"document\":{\"id\":\"" + id + "\",\"uid\":\"" + id + "\","
+      + "\"type\":\"article\",\"tags\":[],\"slug\":\"" + id + "\",\"lang\":\"en-us\"},\"isBroken\":false}}";
+  }
+
+  private static Map<String, String> params(HttpExchange exchange) throws UnsupportedEncodingException {
+    Map<String, String> params = new HashMap<>();
+    String query = exchange.getRequestURI().getRawQuery();
+    if (query != null) {
+      for (String param : query.split("&")) {
+        int eq = param.indexOf('=');
+        if (eq > 0) {
+          params.put(param.substring(0, eq), URLDecoder.decode(param.substring(eq + 1), "UTF-8"));
+        }
+      }
+    }
+    return params;
+  }
+
+  static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+}